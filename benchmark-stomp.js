@@ -0,0 +1,111 @@
+// STOMP load scenario for benchmark-threads.sh, run with k6 (https://k6.io).
+//
+// Each virtual user registers, connects to /ws over a raw WebSocket, goes ONLINE and sends a
+// chat message to itself every SEND_INTERVAL_MS for DURATION_MS. Delivery latency is measured
+// from the SEND frame to the MESSAGE frame on /user/queue/messages, so it covers the inbound
+// channel, the conversation lane, the Mongo save and the outbound channel.
+//
+//   k6 run -e VUS=200 -e DURATION_MS=30000 benchmark-stomp.js
+//
+// Tunables: BASE_URL, VUS, DURATION_MS, SEND_INTERVAL_MS
+
+import http from 'k6/http';
+import ws from 'k6/ws';
+import { Counter, Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const WS_URL = BASE_URL.replace(/^http/, 'ws') + '/ws/websocket';
+const VUS = parseInt(__ENV.VUS || '50', 10);
+const DURATION_MS = parseInt(__ENV.DURATION_MS || '30000', 10);
+const SEND_INTERVAL_MS = parseInt(__ENV.SEND_INTERVAL_MS || '100', 10);
+
+const delivery = new Trend('stomp_delivery', true);
+const received = new Counter('stomp_received');
+const errors = new Counter('stomp_errors');
+
+export const options = {
+    setupTimeout: '10m',
+    summaryTrendStats: ['avg', 'p(95)', 'p(99)', 'max'],
+    scenarios: {
+        stomp: {
+            executor: 'per-vu-iterations',
+            vus: VUS,
+            iterations: 1,
+            maxDuration: `${Math.ceil(DURATION_MS / 1000) + 60}s`,
+        },
+    },
+};
+
+export function setup() {
+    const run = (Date.now() % 1e8).toString(36);
+    const users = [];
+    for (let start = 0; start < VUS; start += 50) {
+        const requests = [];
+        for (let i = start; i < Math.min(start + 50, VUS); i++) {
+            requests.push(['POST', `${BASE_URL}/api/auth/register`,
+                JSON.stringify({ username: `st${run}_${i}`, fullName: 'Benchmark User', password: 'benchmark123' }),
+                { headers: { 'Content-Type': 'application/json' } }]);
+        }
+        for (const res of http.batch(requests)) {
+            if (res.status !== 200 && res.status !== 201) {
+                throw new Error(`Could not register benchmark user: ${res.status} ${res.body}`);
+            }
+            users.push({ username: res.json('username'), token: res.json('token') });
+        }
+    }
+    return users;
+}
+
+function frame(command, headers, body = '') {
+    const lines = Object.entries(headers).map(([name, value]) => `${name}:${value}`);
+    return `${command}\n${lines.join('\n')}\n\n${body}\0`;
+}
+
+export default function (users) {
+    const user = users[(__VU - 1) % users.length];
+
+    ws.connect(WS_URL, {}, (socket) => {
+        socket.on('open', () => {
+            socket.send(frame('CONNECT', {
+                'accept-version': '1.2',
+                host: 'localhost',
+                'heart-beat': '0,0',
+                Authorization: `Bearer ${user.token}`,
+            }));
+        });
+
+        socket.on('message', (data) => {
+            const command = data.substring(0, data.indexOf('\n'));
+            if (command === 'CONNECTED') {
+                socket.send(frame('SUBSCRIBE', { id: 'messages', destination: '/user/queue/messages' }));
+                socket.send(frame('SEND', { destination: '/app/user.addUser', 'content-type': 'application/json' },
+                    JSON.stringify({ username: user.username, fullName: 'Benchmark User', status: 'ONLINE' })));
+                socket.setInterval(() => {
+                    socket.send(frame('SEND', { destination: '/app/chat', 'content-type': 'application/json' },
+                        JSON.stringify({ recipientId: user.username, content: `${Date.now()}`, messageType: 'TEXT' })));
+                }, SEND_INTERVAL_MS);
+            } else if (command === 'MESSAGE') {
+                const body = data.substring(data.indexOf('\n\n') + 2).replace(/\0+$/, '');
+                const sentAt = parseInt(JSON.parse(body).content, 10);
+                if (!isNaN(sentAt)) {
+                    delivery.add(Date.now() - sentAt);
+                    received.add(1);
+                }
+            } else if (command === 'ERROR') {
+                errors.add(1);
+                socket.close();
+            }
+        });
+
+        socket.on('error', () => errors.add(1));
+        socket.setTimeout(() => socket.close(), DURATION_MS);
+    });
+}
+
+// One line for the table printed by benchmark-threads.sh: messages/s, p99 (s), errors
+export function handleSummary(data) {
+    const metric = (name, field) => (data.metrics[name] ? data.metrics[name].values[field] : 0);
+    const rate = metric('stomp_received', 'count') / (DURATION_MS / 1000);
+    const p99 = metric('stomp_delivery', 'p(99)') / 1000;
+    return { stdout: `${rate.toFixed(1)} ${p99.toFixed(4)} ${metric('stomp_errors', 'count')}\n` };
+}
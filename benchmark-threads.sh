@@ -0,0 +1,67 @@
+#!/bin/bash
+# Compare platform-thread and virtual-thread request handling under sustained load.
+#
+# Start the application twice, once per mode, and run this script against each:
+#   VIRTUAL_THREADS_ENABLED=false java -jar target/ChatNexus-3.0.0.jar   (Java 21 runtime)
+#   ./benchmark-threads.sh platform
+#   VIRTUAL_THREADS_ENABLED=true java -jar target/ChatNexus-3.0.0.jar
+#   ./benchmark-threads.sh virtual
+#
+# Requires: curl, jq and hey (https://github.com/rakyll/hey) for the REST endpoints.
+# With k6 (https://k6.io) installed it also runs benchmark-stomp.js, which keeps one STOMP
+# session per concurrency level sending chat messages and reports delivered messages/s.
+# Tunables: BASE_URL, DURATION, CONCURRENCY (space separated levels), STOMP_CONCURRENCY, SEND_INTERVAL_MS
+
+LABEL=${1:-run}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-"50 200 800 2000"}
+# Each STOMP session registers its own user first
+STOMP_CONCURRENCY=${STOMP_CONCURRENCY:-$CONCURRENCY}
+
+for tool in curl jq hey; do
+    command -v "$tool" >/dev/null || { echo "❌ $tool is required"; exit 1; }
+done
+
+USERNAME="bench$RANDOM"
+TOKEN=$(curl -s -X POST "$BASE_URL/api/auth/register" \
+    -H "Content-Type: application/json" \
+    -d "{\"username\":\"$USERNAME\",\"fullName\":\"Benchmark User\",\"password\":\"benchmark123\"}" | jq -r '.token')
+
+if [ -z "$TOKEN" ] || [ "$TOKEN" = "null" ]; then
+    echo "❌ Could not register benchmark user at $BASE_URL"
+    exit 1
+fi
+
+echo "Benchmark '$LABEL' against $BASE_URL as $USERNAME ($DURATION per level)"
+printf "%-12s %-40s %12s %12s %10s\n" "concurrency" "endpoint" "req/s" "p99 (s)" "errors"
+
+for path in "/contacts/$USERNAME" "/messages/$USERNAME/$USERNAME?limit=50" "/users"; do
+    for c in $CONCURRENCY; do
+        result=$(hey -z "$DURATION" -c "$c" -H "Authorization: Bearer $TOKEN" "$BASE_URL$path")
+        rps=$(echo "$result" | awk '/Requests\/sec/ {print $2}')
+        p99=$(echo "$result" | awk '/99% in/ {print $3}')
+        errors=$(echo "$result" | awk '/Error distribution/ {found=1; next} found && /\[/ {sum += substr($1, 2)} END {print sum + 0}')
+        non200=$(echo "$result" | awk '/responses/ && $1 != "[200]" {sum += $2} END {print sum + 0}')
+        printf "%-12s %-40s %12s %12s %10s\n" "$c" "$path" "$rps" "$p99" "$((errors + non200))"
+    done
+done
+
+if ! command -v k6 >/dev/null; then
+    echo "⚠️  k6 not found, skipping the STOMP scenario"
+    exit 0
+fi
+
+# hey-style durations (30s, 2m) to milliseconds for k6
+case "$DURATION" in
+    *ms) DURATION_MS=${DURATION%ms} ;;
+    *s) DURATION_MS=$((${DURATION%s} * 1000)) ;;
+    *m) DURATION_MS=$((${DURATION%m} * 60000)) ;;
+    *) DURATION_MS=$DURATION ;;
+esac
+
+for c in $STOMP_CONCURRENCY; do
+    read -r rps p99 errors < <(k6 run --quiet -e BASE_URL="$BASE_URL" -e VUS="$c" -e DURATION_MS="$DURATION_MS" \
+        -e SEND_INTERVAL_MS="${SEND_INTERVAL_MS:-100}" "$(dirname "$0")/benchmark-stomp.js" | tail -n 1)
+    printf "%-12s %-40s %12s %12s %10s\n" "$c" "STOMP /app/chat (msg/s)" "$rps" "$p99" "$errors"
+done
@@ -0,0 +1,55 @@
+package com.project.ChatNexus.config;
+
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Removes duplicate chat rooms for the same sender and recipient, which concurrent
+ * first messages could create before {@code chat_room_participants_idx} was unique.
+ * The oldest room of each pair is kept; messages are not touched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChatRoomDeduplication implements IndexMigration {
+
+    private static final String COLLECTION = "chat_rooms";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String collection() {
+        return COLLECTION;
+    }
+
+    @Override
+    public void migrate() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.Direction.ASC, "_id"),
+                Aggregation.group("senderId", "recipientId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long pairs = 0;
+        long removed = 0;
+        for (Document pair : mongoTemplate.aggregate(duplicates, COLLECTION, Document.class)) {
+            List<?> ids = pair.getList("ids", Object.class);
+            List<?> extra = ids.subList(1, ids.size());
+            removed += mongoTemplate.getCollection(COLLECTION).deleteMany(Filters.in("_id", extra)).getDeletedCount();
+            pairs++;
+        }
+        if (pairs > 0) {
+            log.warn("Removed {} duplicate chat rooms across {} participant pairs", removed, pairs);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.service.GroupService;
+import com.project.ChatNexus.service.GroupSubscriptionRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authorizes subscriptions to {@code /topic/group.{groupId}} destinations against
+ * group membership, and prevents clients from publishing to broker destinations directly.
+ * <p>
+ * Only {@code /topic/public} and exact group topics can be subscribed to. The broker matches
+ * subscriptions as patterns, so a destination such as {@code /topic/**} would otherwise
+ * receive every group's traffic; destinations containing pattern characters are rejected.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroupSubscriptionInterceptor implements ChannelInterceptor {
+
+    private static final String TOPIC_PREFIX = "/topic/";
+    private static final String USER_PREFIX = "/user/";
+    private static final String PUBLIC_TOPIC = "/topic/public";
+
+    private final GroupService groupService;
+    private final GroupSubscriptionRegistry groupSubscriptionRegistry;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.SUBSCRIBE) {
+            authorizeSubscription(accessor);
+        } else if (command == StompCommand.UNSUBSCRIBE) {
+            groupSubscriptionRegistry.remove(accessor.getSessionId(), accessor.getSubscriptionId());
+        } else if (command == StompCommand.SEND && isBrokerDestination(accessor.getDestination())) {
+            throw new AccessDeniedException("Broker destinations cannot be published to directly");
+        }
+        return message;
+    }
+
+    private void authorizeSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || isPattern(destination)) {
+            log.warn("Rejected pattern subscription to {}", destination);
+            throw new AccessDeniedException("Subscriptions must name a single destination");
+        }
+        if (!destination.startsWith(TOPIC_PREFIX) || destination.equals(PUBLIC_TOPIC)) {
+            // User destinations are authorized by StompAuthenticationInterceptor
+            return;
+        }
+        String groupId = GroupSubscriptionRegistry.groupIdOf(destination);
+        if (groupId == null) {
+            throw new AccessDeniedException("Unknown topic " + destination);
+        }
+
+        Principal principal = accessor.getUser();
+        String username = principal != null ? principal.getName() : null;
+        if (username == null || !groupService.isMember(groupId, username)) {
+            log.warn("Rejected subscription of {} to group {}", username, groupId);
+            throw new AccessDeniedException("Not a member of group " + groupId);
+        }
+        groupSubscriptionRegistry.add(groupId, accessor.getSessionId(), accessor.getSubscriptionId(), username);
+    }
+
+    private static boolean isBrokerDestination(String destination) {
+        return destination != null && (destination.startsWith(TOPIC_PREFIX) || destination.startsWith(USER_PREFIX));
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.project.ChatNexus.repository.GroupMessageRepository;
+import com.project.ChatNexus.repository.GroupReadStatusRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds sequences and last message snapshots for groups created before they existed.
+ * Only groups without a sequence are touched.
+ * <p>
+ * Runs while the context starts, before the web server accepts requests or WebSocket
+ * connections. A send increments {@code messageSeq}, which on a group without one would
+ * start its sequence at 1 and hide it from the backfill, so the backfill has to finish
+ * before the first send. A failure aborts startup for the same reason.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroupSummaryBackfill implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+    private final GroupMessageRepository groupMessageRepository;
+    private final GroupReadStatusRepository groupReadStatusRepository;
+
+    @Value("${groups.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            List<Group> groups = mongoTemplate.find(
+                    new Query(Criteria.where("messageSeq").exists(false)), Group.class);
+            for (Group group : groups) {
+                backfillGroup(group.getId());
+            }
+            log.info("Group summary backfill complete, {} groups updated", groups.size());
+        } catch (Exception e) {
+            throw new IllegalStateException("Group summary backfill failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void backfillGroup(String groupId) {
+        long messageSeq = groupMessageRepository.countByGroupId(groupId);
+
+        for (GroupReadStatus readStatus : groupReadStatusRepository.findByGroupId(groupId)) {
+            long unread = readStatus.getLastReadTimestamp() == null ? messageSeq
+                    : groupMessageRepository.countByGroupIdAndTimestampAfterAndSenderIdNot(
+                    groupId, readStatus.getLastReadTimestamp(), readStatus.getUserId());
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("id").is(readStatus.getId())),
+                    new Update().max("lastReadSeq", Math.max(0L, messageSeq - unread)),
+                    GroupReadStatus.class);
+        }
+
+        Update update = new Update().set("messageSeq", messageSeq);
+        groupMessageRepository.findTopByGroupIdOrderByTimestampDesc(groupId).ifPresent(lastMsg -> update
+                .set("lastMessage", lastMsg.getContent())
+                .set("lastMessageSender", lastMsg.getSenderName())
+                .set("lastMessageTime", lastMsg.getTimestamp())
+                .set("lastMessageType", lastMsg.getMessageType()));
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(groupId).and("messageSeq").exists(false)), update, Group.class);
+    }
+}
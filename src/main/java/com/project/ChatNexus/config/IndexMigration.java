@@ -0,0 +1,18 @@
+package com.project.ChatNexus.config;
+
+/**
+ * Prepares existing documents before {@link MongoIndexVerifier} builds a missing index
+ * on a collection, e.g. by removing duplicates that would fail a unique index.
+ */
+public interface IndexMigration {
+
+    /**
+     * @return the collection whose missing indexes need this migration first
+     */
+    String collection();
+
+    /**
+     * Bring the collection's documents in line with its declared indexes. Must be idempotent.
+     */
+    void migrate();
+}
@@ -0,0 +1,55 @@
+package com.project.ChatNexus.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects oversized media uploads from the Content-Length header, before the multipart body
+ * is read or spooled. Bodies without a length are still capped by the container's multipart limits.
+ */
+@Component
+@Slf4j
+public class MediaUploadLimitFilter extends OncePerRequestFilter {
+
+    private final long maxRequestSize;
+
+    public MediaUploadLimitFilter(@Value("${spring.servlet.multipart.max-request-size:50MB}") DataSize maxRequestSize) {
+        this.maxRequestSize = maxRequestSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/media/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxRequestSize) {
+            log.warn("Upload rejected before reading body: {} bytes exceeds {} bytes", contentLength, maxRequestSize);
+            response.setStatus(HttpStatus.CONTENT_TOO_LARGE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setHeader("Connection", "close");
+            response.getWriter().write("{\"status\":413,\"error\":\"File Too Large\",\"message\":\"File size exceeds the maximum allowed limit of "
+                    + DataSize.ofBytes(maxRequestSize).toMegabytes() + "MB\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
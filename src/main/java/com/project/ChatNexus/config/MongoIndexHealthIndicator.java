@@ -0,0 +1,32 @@
+package com.project.ChatNexus.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports down while a declared unique index is missing or broken, since duplicate
+ * chat rooms, users or read statuses can be written until it is fixed.
+ */
+@Component
+@RequiredArgsConstructor
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    private final MongoIndexVerifier mongoIndexVerifier;
+
+    @Override
+    public Health health() {
+        List<MongoIndexVerifier.IndexStatus> broken = mongoIndexVerifier.brokenUniqueIndexes();
+        if (broken.isEmpty()) {
+            return Health.up().build();
+        }
+        return Health.down()
+                .withDetail("brokenUniqueIndexes", broken.stream()
+                        .map(status -> status.collection() + "/" + status.name() + ": " + status.state())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.project.ChatNexus.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the indexes declared on {@code @Document} models with the indexes present
+ * in MongoDB at startup, builds missing ones in the background, and exposes the
+ * result at {@code /actuator/indexes}. {@link IndexMigration}s for a collection run
+ * before its missing indexes are built. A unique index that cannot be built or is not
+ * unique turns the {@code mongoIndex} health check down, since the code relies on it.
+ */
+@Component
+@Endpoint(id = "indexes")
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexVerifier {
+
+    public enum State { PRESENT, MISSING, BUILDING, CREATED, MISMATCH, FAILED }
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final List<IndexMigration> migrations;
+
+    private final Map<String, IndexStatus> statuses = new ConcurrentHashMap<>();
+    private volatile String phase = "PENDING";
+
+    @Value("${indexes.verify-on-startup:true}")
+    private boolean verifyOnStartup;
+
+    @Value("${indexes.create-missing:true}")
+    private boolean createMissing;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!verifyOnStartup) {
+            phase = "DISABLED";
+            return;
+        }
+        Thread worker = new Thread(this::verify, "mongo-index-verifier");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @ReadOperation
+    public Map<String, Object> indexes() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", phase);
+        result.put("indexes", statuses.values().stream()
+                .sorted(Comparator.comparing(IndexStatus::collection).thenComparing(IndexStatus::keys))
+                .toList());
+        return result;
+    }
+
+    private void verify() {
+        phase = "VERIFYING";
+        try {
+            List<IndexDefinitionHolder> missing = new ArrayList<>();
+            for (IndexDefinitionHolder declared : declaredIndexes()) {
+                if (check(declared) == State.MISSING) {
+                    missing.add(declared);
+                }
+            }
+
+            if (createMissing) {
+                phase = "MIGRATING";
+                Set<String> collections = missing.stream()
+                        .map(IndexDefinitionHolder::getCollection)
+                        .collect(Collectors.toSet());
+                migrations.stream()
+                        .filter(migration -> collections.contains(migration.collection()))
+                        .forEach(this::migrate);
+
+                phase = "BUILDING";
+                missing.forEach(this::build);
+            }
+            phase = "COMPLETE";
+            log.info("Index verification complete, {} declared, {} missing", statuses.size(), missing.size());
+        } catch (Exception e) {
+            phase = "FAILED";
+            log.error("Index verification failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Unique indexes that are missing, failed to build or exist without the unique option.
+     *
+     * @return the broken unique indexes
+     */
+    public List<IndexStatus> brokenUniqueIndexes() {
+        return statuses.values().stream()
+                .filter(IndexStatus::unique)
+                .filter(status -> status.state() == State.FAILED || status.state() == State.MISMATCH
+                        || (status.state() == State.MISSING && "COMPLETE".equals(phase)))
+                .toList();
+    }
+
+    private void migrate(IndexMigration migration) {
+        try {
+            migration.migrate();
+        } catch (Exception e) {
+            // The index build below fails too and reports the collection as broken
+            log.error("Migration {} of {} failed: {}",
+                    migration.getClass().getSimpleName(), migration.collection(), e.getMessage());
+        }
+    }
+
+    private List<IndexDefinitionHolder> declaredIndexes() {
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        List<IndexDefinitionHolder> declared = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            for (var definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                declared.add((IndexDefinitionHolder) definition);
+            }
+        }
+        return declared;
+    }
+
+    private State check(IndexDefinitionHolder declared) {
+        String keys = signature(declared.getIndexKeys());
+        boolean unique = isUnique(declared);
+
+        Optional<IndexInfo> actual = mongoTemplate.indexOps(declared.getCollection()).getIndexInfo().stream()
+                .filter(info -> signature(info).equals(keys))
+                .findFirst();
+
+        State state;
+        if (actual.isEmpty()) {
+            state = State.MISSING;
+        } else if (unique && !actual.get().isUnique()) {
+            state = State.MISMATCH;
+            log.warn("Index {} on {} exists but is not unique", keys, declared.getCollection());
+        } else {
+            state = State.PRESENT;
+        }
+        record(declared, state, null);
+        return state;
+    }
+
+    private void build(IndexDefinitionHolder declared) {
+        record(declared, State.BUILDING, null);
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(declared.getCollection());
+            indexOps.createIndex(declared);
+            record(declared, State.CREATED, null);
+            log.info("Created index {} on {}", signature(declared.getIndexKeys()), declared.getCollection());
+        } catch (Exception e) {
+            record(declared, State.FAILED, e.getMessage());
+            if (isUnique(declared)) {
+                log.error("Failed to create UNIQUE index {} on {}, duplicates can now be written: {}",
+                        signature(declared.getIndexKeys()), declared.getCollection(), e.getMessage());
+            } else {
+                log.error("Failed to create index {} on {}: {}",
+                        signature(declared.getIndexKeys()), declared.getCollection(), e.getMessage());
+            }
+        }
+    }
+
+    private void record(IndexDefinitionHolder declared, State state, String error) {
+        String keys = signature(declared.getIndexKeys());
+        statuses.put(declared.getCollection() + "/" + keys, new IndexStatus(
+                declared.getCollection(), declared.getIndexOptions().getString("name"), keys,
+                isUnique(declared), state, error));
+    }
+
+    private static boolean isUnique(IndexDefinitionHolder declared) {
+        return Boolean.TRUE.equals(declared.getIndexOptions().get("unique"));
+    }
+
+    private static String signature(Document keys) {
+        return keys.entrySet().stream()
+                .map(entry -> entry.getKey() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private static String signature(IndexInfo info) {
+        return info.getIndexFields().stream()
+                .map(field -> field.getKey() + ":" + (field.getDirection() == Sort.Direction.DESC ? -1 : 1))
+                .collect(Collectors.joining(","));
+    }
+
+    public record IndexStatus(String collection, String name, String keys, boolean unique, State state, String error) {
+    }
+}
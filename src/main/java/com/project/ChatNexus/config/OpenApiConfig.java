@@ -37,17 +37,21 @@ public class OpenApiConfig {
                                 
                                 ## Features
                                 - Real-time messaging via WebSocket/STOMP
-                                - Media sharing (images, videos, audio) via Cloudinary
+                                - Media sharing (images, videos, audio) via Cloudinary or local storage
                                 - JWT authentication
                                 - Read receipts and delivery status
                                 - User presence (online/offline)
                                 
                                 ## WebSocket Endpoints
-                                - Connect: `/ws` (with SockJS fallback)
+                                - Connect: `/ws` (with SockJS fallback), sending `Authorization: Bearer <token>` in the STOMP CONNECT headers
                                 - Send message: `/app/chat`
                                 - Mark as read: `/app/chat.read`
                                 - Subscribe to messages: `/user/{username}/queue/messages`
                                 - Subscribe to status: `/user/{username}/queue/status`
+                                - Send group message: `/app/group.chat`
+                                - Subscribe to group messages: `/topic/group.{groupId}` (members only)
+                                - Subscribe to group updates: `/topic/group.{groupId}.updates` (members only)
+                                - Subscribe to personal group notifications: `/user/{username}/queue/group-updates`
                                 """)
                         .contact(new Contact()
                                 .name("ChatNexus Support")
@@ -0,0 +1,99 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.security.JwtService;
+import com.project.ChatNexus.security.TokenRevocationRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP sessions. The JWT from the CONNECT frame's {@code Authorization}
+ * header is verified once and the resulting principal is bound to the session, so
+ * message handlers take identity from the session instead of the payload.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String USER_DESTINATION_PREFIX = "/user/";
+
+    private final JwtService jwtService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.CONNECT) {
+            accessor.setUser(authenticate(accessor));
+        } else if (command == StompCommand.SEND || command == StompCommand.SUBSCRIBE) {
+            Principal principal = accessor.getUser();
+            if (principal == null) {
+                throw new AccessDeniedException("STOMP session is not authenticated");
+            }
+            if (command == StompCommand.SUBSCRIBE) {
+                authorizeUserDestination(principal, accessor.getDestination());
+            }
+        }
+        return message;
+    }
+
+    private Principal authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            throw new AccessDeniedException("Missing bearer token on STOMP CONNECT");
+        }
+
+        try {
+            Claims claims = jwtService.verifyToken(header.substring(BEARER_PREFIX.length()));
+            String username = claims.getSubject();
+            if (username == null || tokenRevocationRegistry.isRevoked(username, claims.getIssuedAt())) {
+                throw new AccessDeniedException("Token has been revoked");
+            }
+            log.debug("STOMP session {} authenticated as {}", accessor.getSessionId(), username);
+            return new UsernamePasswordAuthenticationToken(username, null, jwtService.extractAuthorities(claims));
+        } catch (JwtException e) {
+            log.warn("Rejected STOMP CONNECT for session {}: {}", accessor.getSessionId(), e.getMessage());
+            throw new AccessDeniedException("Invalid token");
+        }
+    }
+
+    /**
+     * Only allow subscribing to another user's {@code /user/{username}/...} destinations
+     * when they are your own. The {@code /user/queue/...} form is resolved per session
+     * by the broker and is always allowed.
+     */
+    private void authorizeUserDestination(Principal principal, String destination) {
+        if (destination == null || !destination.startsWith(USER_DESTINATION_PREFIX)) {
+            return;
+        }
+        String rest = destination.substring(USER_DESTINATION_PREFIX.length());
+        int slash = rest.indexOf('/');
+        String owner = slash < 0 ? rest : rest.substring(0, slash);
+        if (owner.equals("queue") || owner.equals("topic") || owner.equals(principal.getName())) {
+            return;
+        }
+        log.warn("Rejected subscription of {} to {}", principal.getName(), destination);
+        throw new AccessDeniedException("Cannot subscribe to another user's destination");
+    }
+}
@@ -0,0 +1,59 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.model.Status;
+import com.project.ChatNexus.model.User;
+import com.project.ChatNexus.service.GroupSubscriptionRegistry;
+import com.project.ChatNexus.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+
+/**
+ * Keeps user presence in sync with the WebSocket session lifecycle.
+ * Sessions are bound to the principal authenticated at STOMP CONNECT.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WebSocketEventListener {
+
+    private final UserService userService;
+    private final GroupSubscriptionRegistry groupSubscriptionRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @EventListener
+    public void handleSessionConnected(SessionConnectedEvent event) {
+        Principal principal = event.getUser();
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (principal == null || sessionId == null) {
+            log.debug("WebSocket session {} connected without principal", sessionId);
+            return;
+        }
+
+        userService.connectSession(principal.getName(), sessionId)
+                .ifPresent(user -> broadcastPresence(user, Status.ONLINE));
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        log.debug("WebSocket session {} closed ({})", event.getSessionId(), event.getCloseStatus());
+        groupSubscriptionRegistry.removeSession(event.getSessionId());
+        userService.disconnectSession(event.getSessionId())
+                .ifPresent(user -> broadcastPresence(user, Status.OFFLINE));
+    }
+
+    private void broadcastPresence(User user, Status status) {
+        messagingTemplate.convertAndSend("/topic/public", User.builder()
+                .username(user.getUsername())
+                .fullName(user.getFullName())
+                .status(status)
+                .build());
+    }
+}
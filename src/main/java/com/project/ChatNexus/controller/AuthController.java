@@ -17,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.util.Map;
 
 /**
@@ -76,4 +77,21 @@ public class AuthController {
                     .body(Map.of("error", e.getMessage()));
         }
     }
+
+    @Operation(
+            summary = "Logout user",
+            description = "Revoke every token issued to the current user, logging out all of their sessions"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Logged out"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required"));
+        }
+        authService.logout(principal.getName());
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -2,9 +2,13 @@ package com.project.ChatNexus.controller;
 
 import com.project.ChatNexus.dto.response.ChatContactResponse;
 import com.project.ChatNexus.dto.response.ChatNotification;
+import com.project.ChatNexus.dto.response.MessagePageResponse;
 import com.project.ChatNexus.model.ChatMessage;
 import com.project.ChatNexus.model.MessageStatus;
 import com.project.ChatNexus.service.ChatMessageService;
+import com.project.ChatNexus.service.ChatRoomService;
+import com.project.ChatNexus.service.ConversationExecutor;
+import com.project.ChatNexus.service.ReactiveChatQueryService;
 import com.project.ChatNexus.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,7 +27,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -40,15 +47,27 @@ public class ChatController {
     private final ChatMessageService chatMessageService;
     private final SimpMessagingTemplate messagingTemplate;
     private final UserService userService;
+    private final ConversationExecutor conversationExecutor;
+    private final ReactiveChatQueryService reactiveChatQueryService;
 
     /**
      * Process incoming chat message via WebSocket.
      * Saves the message and delivers it to the recipient if online.
+     * The sender is the user authenticated on the session. Messages of one
+     * conversation are processed in order on that conversation's lane.
      *
      * @param chatMessage the message to process
+     * @param principal   the user authenticated at STOMP CONNECT
      */
     @MessageMapping("/chat")
-    public void processMessage(@Payload ChatMessage chatMessage) {
+    public void processMessage(@Payload ChatMessage chatMessage, Principal principal) {
+        chatMessage.setSenderId(principal.getName());
+        conversationExecutor.execute(
+                ChatRoomService.canonicalChatId(chatMessage.getSenderId(), chatMessage.getRecipientId()),
+                () -> deliverMessage(chatMessage));
+    }
+
+    private void deliverMessage(ChatMessage chatMessage) {
         log.info("Processing message from {} to {}", chatMessage.getSenderId(), chatMessage.getRecipientId());
 
         ChatMessage savedMsg = chatMessageService.save(chatMessage);
@@ -74,6 +93,10 @@ public class ChatController {
                             .fileName(savedMsg.getFileName())
                             .fileSize(savedMsg.getFileSize())
                             .mimeType(savedMsg.getMimeType())
+                            .thumbnailUrl(savedMsg.getThumbnailUrl())
+                            .mediaWidth(savedMsg.getMediaWidth())
+                            .mediaHeight(savedMsg.getMediaHeight())
+                            .blurHash(savedMsg.getBlurHash())
                             .build()
             );
 
@@ -99,13 +122,20 @@ public class ChatController {
 
     /**
      * Mark messages as read via WebSocket.
+     * The reader is the user authenticated on the session.
      *
-     * @param payload containing senderId and recipientId
+     * @param payload   containing the senderId whose messages were read
+     * @param principal the user authenticated at STOMP CONNECT
      */
     @MessageMapping("/chat.read")
-    public void markAsRead(@Payload Map<String, String> payload) {
+    public void markAsRead(@Payload Map<String, String> payload, Principal principal) {
         String senderId = payload.get("senderId");
-        String recipientId = payload.get("recipientId");
+        String recipientId = principal.getName();
+        conversationExecutor.execute(ChatRoomService.canonicalChatId(senderId, recipientId),
+                () -> sendReadReceipts(senderId, recipientId));
+    }
+
+    private void sendReadReceipts(String senderId, String recipientId) {
 
         log.info("Marking messages as read - sender: {}, recipient: {}", senderId, recipientId);
 
@@ -134,22 +164,38 @@ public class ChatController {
 
     @Operation(
             summary = "Get chat messages",
-            description = "Retrieve all messages between two users"
+            description = """
+                    Retrieve messages between two users, one page at a time, ordered oldest to newest.
+                    Without a cursor the latest page is returned. Pass `olderCursor` from a page as `before`
+                    to load earlier history, or `newerCursor` as `after` to load newer messages.
+                    Set `all=true` to retrieve the full history as a plain list.
+                    """
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Messages retrieved successfully",
-                    content = @Content(schema = @Schema(implementation = ChatMessage.class))),
+                    content = @Content(schema = @Schema(implementation = MessagePageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/messages/{senderId}/{recipientId}")
-    public ResponseEntity<List<ChatMessage>> findChatMessages(
+    public Mono<ResponseEntity<?>> findChatMessages(
             @Parameter(description = "ID of the sender (current user)") @PathVariable("senderId") String senderId,
-            @Parameter(description = "ID of the recipient") @PathVariable("recipientId") String recipientId
+            @Parameter(description = "ID of the recipient") @PathVariable("recipientId") String recipientId,
+            @Parameter(description = "Return messages older than this cursor") @RequestParam(required = false) String before,
+            @Parameter(description = "Return messages newer than this cursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Page size (default 50, max 200)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Return the full history instead of a page") @RequestParam(defaultValue = "false") boolean all
     ) {
         log.info("Fetching chat messages between {} and {}", senderId, recipientId);
-        List<ChatMessage> messages = chatMessageService.findChatMessages(senderId, recipientId);
-        log.debug("Found {} messages", messages.size());
-        return ResponseEntity.ok(messages);
+        if (all) {
+            return reactiveChatQueryService.findChatMessages(senderId, recipientId)
+                    .doOnNext(messages -> log.debug("Found {} messages", messages.size()))
+                    .map(ResponseEntity::ok);
+        }
+
+        return reactiveChatQueryService.findChatMessagesPage(senderId, recipientId, before, after, limit)
+                .doOnNext(page -> log.debug("Found {} messages", page.getMessages().size()))
+                .map(ResponseEntity::ok);
     }
 
     @Operation(
@@ -161,14 +207,22 @@ public class ChatController {
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/messages/undelivered/{userId}")
-    public ResponseEntity<List<ChatMessage>> getUndeliveredMessages(
+    public Mono<ResponseEntity<List<ChatMessage>>> getUndeliveredMessages(
             @Parameter(description = "ID of the user to get undelivered messages for") @PathVariable String userId
     ) {
         log.info("Fetching undelivered messages for user: {}", userId);
-        List<ChatMessage> undeliveredMessages = chatMessageService.findUndeliveredMessages(userId);
-        log.debug("Found {} undelivered messages", undeliveredMessages.size());
+        return reactiveChatQueryService.takeUndeliveredMessages(userId)
+                .map(undeliveredMessages -> {
+                    log.debug("Found {} undelivered messages", undeliveredMessages.size());
+                    sendDeliveryReceipts(undeliveredMessages);
+                    return ResponseEntity.ok(undeliveredMessages);
+                });
+    }
 
-        // Send delivery confirmation to original senders who are online
+    /**
+     * Send delivery confirmation to original senders who are online.
+     */
+    private void sendDeliveryReceipts(List<ChatMessage> undeliveredMessages) {
         undeliveredMessages.forEach(msg -> {
             if (userService.isUserOnline(msg.getSenderId())) {
                 messagingTemplate.convertAndSendToUser(
@@ -184,9 +238,6 @@ public class ChatController {
                 log.debug("Delivery confirmation sent to {}", msg.getSenderId());
             }
         });
-
-        chatMessageService.markMessagesAsDelivered(undeliveredMessages);
-        return ResponseEntity.ok(undeliveredMessages);
     }
 
     @Operation(
@@ -217,13 +268,13 @@ public class ChatController {
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/contacts/{userId}")
-    public ResponseEntity<List<ChatContactResponse>> getChatContacts(
+    public Mono<ResponseEntity<List<ChatContactResponse>>> getChatContacts(
             @Parameter(description = "ID of the user") @PathVariable String userId
     ) {
         log.info("Fetching chat contacts for user: {}", userId);
-        List<ChatContactResponse> contacts = chatMessageService.getChatContacts(userId);
-        log.debug("Found {} contacts", contacts.size());
-        return ResponseEntity.ok(contacts);
+        return reactiveChatQueryService.getChatContacts(userId)
+                .doOnNext(contacts -> log.debug("Found {} contacts", contacts.size()))
+                .map(ResponseEntity::ok);
     }
 }
 
@@ -7,24 +7,36 @@ import com.project.ChatNexus.dto.response.GroupResponse;
 import com.project.ChatNexus.model.Group;
 import com.project.ChatNexus.model.GroupMessage;
 import com.project.ChatNexus.model.MessageType;
+import com.project.ChatNexus.service.ConversationExecutor;
 import com.project.ChatNexus.service.GroupMessageService;
 import com.project.ChatNexus.service.GroupService;
+import com.project.ChatNexus.service.GroupSubscriptionRegistry;
+import com.project.ChatNexus.service.NotificationFanout;
+import com.project.ChatNexus.service.ReactiveGroupQueryService;
 import com.project.ChatNexus.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
+import java.security.Principal;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller handling group chat operations including messaging via WebSocket
@@ -36,17 +48,39 @@ import java.util.Map;
 @Tag(name = "Groups", description = "Group chat operations")
 public class GroupController {
 
+    private static final String LEGACY_GROUP_MESSAGES_QUEUE = "/queue/group-messages";
+    private static final String GROUP_UPDATES_QUEUE = "/queue/group-updates";
+
     private final GroupService groupService;
     private final GroupMessageService groupMessageService;
     private final SimpMessagingTemplate messagingTemplate;
     private final UserService userService;
+    private final GroupSubscriptionRegistry groupSubscriptionRegistry;
+    private final NotificationFanout notificationFanout;
+    private final ConversationExecutor conversationExecutor;
+    private final ReactiveGroupQueryService reactiveGroupQueryService;
+
+    @Value("${groups.legacy-user-queue:true}")
+    private boolean legacyUserQueue;
 
     /**
      * Process incoming group message via WebSocket.
-     * Saves the message and broadcasts to all group members.
+     * Saves the message and publishes it once to the group topic,
+     * which reaches every subscribed member session.
+     * The sender is the user authenticated on the session. Messages of one
+     * group are processed in order on that group's lane.
      */
     @MessageMapping("/group.chat")
-    public void processGroupMessage(@Payload GroupMessage groupMessage) {
+    public void processGroupMessage(@Payload GroupMessage groupMessage, Principal principal) {
+        if (groupMessage.getMessageType() == MessageType.SYSTEM) {
+            throw new AccessDeniedException("System messages cannot be sent by clients");
+        }
+        groupMessage.setSenderId(principal.getName());
+        groupMessage.setSenderName(null);
+        conversationExecutor.execute(groupMessage.getGroupId(), () -> publishGroupMessage(groupMessage));
+    }
+
+    private void publishGroupMessage(GroupMessage groupMessage) {
         log.info("Processing group message from {} to group {}",
                 groupMessage.getSenderId(), groupMessage.getGroupId());
 
@@ -68,21 +102,15 @@ public class GroupController {
                     .fileName(savedMsg.getFileName())
                     .fileSize(savedMsg.getFileSize())
                     .mimeType(savedMsg.getMimeType())
+                    .thumbnailUrl(savedMsg.getThumbnailUrl())
+                    .mediaWidth(savedMsg.getMediaWidth())
+                    .mediaHeight(savedMsg.getMediaHeight())
+                    .blurHash(savedMsg.getBlurHash())
                     .build();
 
-            // Send to all group members via their personal queues
-            for (String memberId : group.getMemberIds()) {
-                if (userService.isUserOnline(memberId)) {
-                    messagingTemplate.convertAndSendToUser(
-                            memberId,
-                            "/queue/group-messages",
-                            notification);
-                    log.debug("Sent group message to member: {}", memberId);
-                }
-            }
+            sendGroupMessage(group.getId(), group.getMemberIds(), notification);
 
-            log.info("Group message {} broadcast to {} members",
-                    savedMsg.getId(), group.getMemberIds().size());
+            log.info("Group message {} published to group {}", savedMsg.getId(), group.getId());
         });
     }
 
@@ -107,13 +135,13 @@ public class GroupController {
         // Create system message for group creation
         GroupMessage systemMsg = GroupMessage.builder()
                 .groupId(group.getId())
-                .senderId("SYSTEM")
+                .senderId(GroupMessage.SYSTEM_SENDER_ID)
                 .senderName("System")
                 .content(creatorName + " created the group \"" + group.getName() + "\"")
                 .timestamp(new Date())
                 .messageType(MessageType.SYSTEM)
                 .build();
-        GroupMessage savedSystemMsg = groupMessageService.save(systemMsg);
+        GroupMessage savedSystemMsg = groupMessageService.saveSystemMessage(systemMsg);
 
         // Build notification for the creation system message
         GroupMessageNotification creationNotification = GroupMessageNotification.builder()
@@ -127,15 +155,8 @@ public class GroupController {
                 .messageType(savedSystemMsg.getMessageType())
                 .build();
 
-        // Broadcast creation system message to all members
-        for (String memberId : group.getMemberIds()) {
-            if (userService.isUserOnline(memberId)) {
-                messagingTemplate.convertAndSendToUser(
-                        memberId,
-                        "/queue/group-messages",
-                        creationNotification);
-            }
-        }
+        // Publish creation system message to the group topic
+        sendGroupMessage(group.getId(), group.getMemberIds(), creationNotification);
 
         // If there are other members (besides creator), add system messages for them
         // being added
@@ -148,13 +169,13 @@ public class GroupController {
 
                     GroupMessage addedMsg = GroupMessage.builder()
                             .groupId(group.getId())
-                            .senderId("SYSTEM")
+                            .senderId(GroupMessage.SYSTEM_SENDER_ID)
                             .senderName("System")
                             .content(memberName + " was added to the group")
                             .timestamp(new Date())
                             .messageType(MessageType.SYSTEM)
                             .build();
-                    GroupMessage savedAddedMsg = groupMessageService.save(addedMsg);
+                    GroupMessage savedAddedMsg = groupMessageService.saveSystemMessage(addedMsg);
 
                     // Broadcast added system message
                     GroupMessageNotification addedNotification = GroupMessageNotification.builder()
@@ -168,28 +189,15 @@ public class GroupController {
                             .messageType(savedAddedMsg.getMessageType())
                             .build();
 
-                    for (String existingMember : group.getMemberIds()) {
-                        if (userService.isUserOnline(existingMember)) {
-                            messagingTemplate.convertAndSendToUser(
-                                    existingMember,
-                                    "/queue/group-messages",
-                                    addedNotification);
-                        }
-                    }
+                    sendGroupMessage(group.getId(), group.getMemberIds(), addedNotification);
                 }
             }
         }
 
         // Notify all initial members about the new group (for sidebar update)
         GroupResponse response = mapToGroupResponse(group);
-        for (String memberId : group.getMemberIds()) {
-            if (userService.isUserOnline(memberId)) {
-                messagingTemplate.convertAndSendToUser(
-                        memberId,
-                        "/queue/group-updates",
-                        Map.of("type", "GROUP_CREATED", "group", response));
-            }
-        }
+        notificationFanout.sendToUsers(group.getMemberIds(), GROUP_UPDATES_QUEUE,
+                Map.of("type", "GROUP_CREATED", "group", response));
 
         return ResponseEntity.ok(response);
     }
@@ -200,10 +208,9 @@ public class GroupController {
     @Operation(summary = "Get user's groups")
     @GetMapping("/groups/user/{userId}")
     @ResponseBody
-    public ResponseEntity<List<GroupResponse>> getUserGroups(@PathVariable String userId) {
+    public Mono<ResponseEntity<List<GroupResponse>>> getUserGroups(@PathVariable String userId) {
         log.debug("Fetching groups for user: {}", userId);
-        List<GroupResponse> groups = groupService.getGroupsForUser(userId);
-        return ResponseEntity.ok(groups);
+        return reactiveGroupQueryService.getGroupsForUser(userId).map(ResponseEntity::ok);
     }
 
     /**
@@ -220,21 +227,34 @@ public class GroupController {
 
     /**
      * Get group messages and mark as read.
+     * Returns the latest page by default; {@code all=true} returns the full history.
      */
     @Operation(summary = "Get group messages")
     @GetMapping("/groups/{groupId}/messages")
     @ResponseBody
-    public ResponseEntity<List<GroupMessage>> getGroupMessages(
+    public Mono<ResponseEntity<?>> getGroupMessages(
             @PathVariable String groupId,
-            @RequestParam String userId) {
+            @RequestParam String userId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean all) {
 
         log.debug("Fetching messages for group {} by user {}", groupId, userId);
-        List<GroupMessage> messages = groupMessageService.findGroupMessages(groupId, userId);
-
-        // Mark group as read when user fetches messages
-        groupService.markGroupAsRead(groupId, userId);
+        if (all) {
+            return reactiveGroupQueryService.findGroupMessages(groupId, userId)
+                    .flatMap(messages -> reactiveGroupQueryService.markGroupAsRead(groupId, userId)
+                            .thenReturn(ResponseEntity.ok(messages)));
+        }
 
-        return ResponseEntity.ok(messages);
+        return reactiveGroupQueryService.findGroupMessagesPage(groupId, userId, before, after, limit)
+                .flatMap(page -> {
+                    // Mark group as read when user fetches the latest messages
+                    Mono<Void> markRead = before == null
+                            ? reactiveGroupQueryService.markGroupAsRead(groupId, userId)
+                            : Mono.empty();
+                    return markRead.thenReturn(ResponseEntity.ok(page));
+                });
     }
 
     /**
@@ -282,14 +302,14 @@ public class GroupController {
             // Create system message: "User X was added to the group"
             GroupMessage systemMsg = GroupMessage.builder()
                     .groupId(groupId)
-                    .senderId("SYSTEM")
+                    .senderId(GroupMessage.SYSTEM_SENDER_ID)
                     .senderName("System")
                     .content(memberName + " was added to the group by " + requesterName)
                     .timestamp(new Date())
                     .messageType(MessageType.SYSTEM)
                     .build();
 
-            GroupMessage savedMsg = groupMessageService.save(systemMsg);
+            GroupMessage savedMsg = groupMessageService.saveSystemMessage(systemMsg);
 
             // Create notification for the system message
             GroupMessageNotification systemNotification = GroupMessageNotification.builder()
@@ -303,34 +323,18 @@ public class GroupController {
                     .messageType(savedMsg.getMessageType())
                     .build();
 
-            // Send system message to all online members
-            for (String existingMember : group.getMemberIds()) {
-                if (userService.isUserOnline(existingMember)) {
-                    messagingTemplate.convertAndSendToUser(
-                            existingMember,
-                            "/queue/group-messages",
-                            systemNotification);
-                }
-            }
-
-            // Notify the added member specifically
-            if (userService.isUserOnline(memberId)) {
-                messagingTemplate.convertAndSendToUser(
-                        memberId,
-                        "/queue/group-updates",
-                        Map.of("type", "ADDED_TO_GROUP", "group", response));
-            }
+            // Publish system message to subscribed members
+            sendGroupMessage(groupId, group.getMemberIds(), systemNotification);
         }
 
-        // Notify existing members about new members
-        for (String memberId : group.getMemberIds()) {
-            if (!request.getMemberIds().contains(memberId) && userService.isUserOnline(memberId)) {
-                messagingTemplate.convertAndSendToUser(
-                        memberId,
-                        "/queue/group-updates",
-                        Map.of("type", "MEMBERS_ADDED", "group", response));
-            }
-        }
+        // Notify the added members specifically
+        notificationFanout.sendToUsers(request.getMemberIds(), GROUP_UPDATES_QUEUE,
+                Map.of("type", "ADDED_TO_GROUP", "group", response));
+
+        // Notify existing members about new members (new members are not subscribed yet)
+        Set<String> existingMembers = new HashSet<>(group.getMemberIds());
+        existingMembers.removeAll(request.getMemberIds());
+        publishGroupUpdate(groupId, existingMembers, Map.of("type", "MEMBERS_ADDED", "group", response));
 
         return ResponseEntity.ok(response);
     }
@@ -348,12 +352,13 @@ public class GroupController {
 
         log.info("Removing member {} from group {} by {}", memberId, groupId, requesterId);
         Group group = groupService.removeMember(groupId, requesterId, memberId);
+        groupSubscriptionRegistry.revoke(groupId, memberId);
 
         // Notify removed member
         if (userService.isUserOnline(memberId)) {
             messagingTemplate.convertAndSendToUser(
                     memberId,
-                    "/queue/group-updates",
+                    GROUP_UPDATES_QUEUE,
                     Map.of("type", "REMOVED_FROM_GROUP", "groupId", groupId));
         }
 
@@ -383,19 +388,22 @@ public class GroupController {
 
         // Leave the group
         groupService.leaveGroup(groupId, userId);
+        groupSubscriptionRegistry.revoke(groupId, userId);
 
         // Check if group still exists (not deleted due to empty members)
-        if (groupService.getGroupById(groupId).isPresent()) {
+        if (groupService.getGroupById(groupId).isEmpty()) {
+            groupSubscriptionRegistry.revokeAll(groupId);
+        } else {
             // Create and broadcast system message about user leaving
             GroupMessage systemMsg = GroupMessage.builder()
                     .groupId(groupId)
-                    .senderId("SYSTEM")
+                    .senderId(GroupMessage.SYSTEM_SENDER_ID)
                     .senderName("System")
                     .content(userName + " left the group")
                     .timestamp(new Date())
                     .messageType(MessageType.SYSTEM)
                     .build();
-            GroupMessage savedMsg = groupMessageService.save(systemMsg);
+            GroupMessage savedMsg = groupMessageService.saveSystemMessage(systemMsg);
 
             // Broadcast to remaining members
             Group updatedGroup = groupService.getGroupById(groupId).get();
@@ -410,19 +418,10 @@ public class GroupController {
                     .messageType(savedMsg.getMessageType())
                     .build();
 
-            for (String memberId : updatedGroup.getMemberIds()) {
-                if (userService.isUserOnline(memberId)) {
-                    messagingTemplate.convertAndSendToUser(
-                            memberId,
-                            "/queue/group-messages",
-                            notification);
-                    // Also notify about group update for sidebar
-                    messagingTemplate.convertAndSendToUser(
-                            memberId,
-                            "/queue/group-updates",
-                            Map.of("type", "MEMBER_LEFT", "group", mapToGroupResponse(updatedGroup)));
-                }
-            }
+            sendGroupMessage(groupId, updatedGroup.getMemberIds(), notification);
+            // Also notify about group update for sidebar
+            publishGroupUpdate(groupId, updatedGroup.getMemberIds(),
+                    Map.of("type", "MEMBER_LEFT", "group", mapToGroupResponse(updatedGroup)));
         }
 
         return ResponseEntity.ok(Map.of("message", "Successfully left the group"));
@@ -460,14 +459,7 @@ public class GroupController {
 
         // Notify all members about the update
         GroupResponse response = mapToGroupResponse(group);
-        for (String memberId : group.getMemberIds()) {
-            if (userService.isUserOnline(memberId)) {
-                messagingTemplate.convertAndSendToUser(
-                        memberId,
-                        "/queue/group-updates",
-                        Map.of("type", "GROUP_UPDATED", "group", response));
-            }
-        }
+        publishGroupUpdate(groupId, group.getMemberIds(), Map.of("type", "GROUP_UPDATED", "group", response));
 
         return ResponseEntity.ok(response);
     }
@@ -484,23 +476,60 @@ public class GroupController {
 
         log.info("Deleting group {} by {}", groupId, requesterId);
 
-        // Get members before deletion to notify them
-        groupService.getGroupById(groupId).ifPresent(group -> {
-            for (String memberId : group.getMemberIds()) {
-                if (userService.isUserOnline(memberId)) {
-                    messagingTemplate.convertAndSendToUser(
-                            memberId,
-                            "/queue/group-updates",
-                            Map.of("type", "GROUP_DELETED", "groupId", groupId));
-                }
-            }
-        });
-
+        // Members are only needed for the legacy queue; the group is gone once deleted
+        Set<String> memberIds = legacyUserQueue
+                ? groupService.getGroupById(groupId).map(Group::getMemberIds).orElse(Set.of())
+                : Set.of();
         groupService.deleteGroup(groupId, requesterId);
 
+        // Notify subscribed members, then drop their subscriptions
+        publishGroupUpdate(groupId, memberIds, Map.of("type", "GROUP_DELETED", "groupId", groupId));
+        groupSubscriptionRegistry.revokeAll(groupId);
+
         return ResponseEntity.ok(Map.of("message", "Group deleted successfully"));
     }
 
+    /**
+     * Get the progress of a deleted group's background cleanup of messages, media and read status.
+     * Only the user who deleted the group can see it; anyone else gets 404, as if it never existed.
+     */
+    @Operation(summary = "Get group deletion progress")
+    @GetMapping("/groups/{groupId}/deletion")
+    @ResponseBody
+    public ResponseEntity<?> getDeletionProgress(@PathVariable String groupId, Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required"));
+        }
+        return groupService.getDeletionProgress(groupId)
+                .filter(job -> principal.getName().equals(job.getRequestedBy()))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Publish a group message to the group topic. While {@code groups.legacy-user-queue} is on it
+     * is also sent to each online member's {@code /user/queue/group-messages}, which clients used
+     * before the topic existed. That queue is deprecated and will be removed in the next release.
+     */
+    private void sendGroupMessage(String groupId, Collection<String> memberIds, Object notification) {
+        messagingTemplate.convertAndSend(GroupSubscriptionRegistry.messagesTopic(groupId), notification);
+        if (legacyUserQueue && memberIds != null) {
+            notificationFanout.sendToUsers(memberIds, LEGACY_GROUP_MESSAGES_QUEUE, notification);
+        }
+    }
+
+    /**
+     * Publish a membership or detail update to all members subscribed to the group. Like
+     * {@link #sendGroupMessage}, while {@code groups.legacy-user-queue} is on it is also sent to
+     * each online member's {@code /user/queue/group-updates}, where clients received it before.
+     */
+    private void publishGroupUpdate(String groupId, Collection<String> memberIds, Object update) {
+        messagingTemplate.convertAndSend(GroupSubscriptionRegistry.updatesTopic(groupId), update);
+        if (legacyUserQueue && memberIds != null) {
+            notificationFanout.sendToUsers(memberIds, GROUP_UPDATES_QUEUE, update);
+        }
+    }
+
     private GroupResponse mapToGroupResponse(Group group) {
         return GroupResponse.builder()
                 .id(group.getId())
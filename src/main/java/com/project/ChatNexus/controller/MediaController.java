@@ -1,8 +1,11 @@
 package com.project.ChatNexus.controller;
 
+import com.project.ChatNexus.dto.request.CreateUploadSessionRequest;
 import com.project.ChatNexus.dto.response.MediaUploadResponse;
+import com.project.ChatNexus.dto.response.UploadSessionResponse;
 import com.project.ChatNexus.model.MessageType;
-import com.project.ChatNexus.service.CloudinaryService;
+import com.project.ChatNexus.service.ChunkedUploadService;
+import com.project.ChatNexus.service.MediaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,18 +13,23 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
- * Controller handling media upload operations via Cloudinary.
+ * Controller handling media upload operations against the configured media storage.
  */
 @RestController
 @RequestMapping("/api/media")
@@ -33,12 +41,13 @@ public class MediaController {
     private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
     private static final String ERROR_KEY = "error";
 
-    private final CloudinaryService cloudinaryService;
+    private final MediaService mediaService;
+    private final ChunkedUploadService chunkedUploadService;
 
     @Operation(
             summary = "Upload media file",
             description = """
-                    Upload media file to Cloudinary for sharing in chat.
+                    Upload media file to the configured storage (Cloudinary or local disk) for sharing in chat.
                     
                     **Supported formats:**
                     - Images: JPG, JPEG, PNG, GIF, WebP, BMP
@@ -78,30 +87,23 @@ public class MediaController {
             }
 
             // Check if file type is allowed
-            if (!cloudinaryService.isFileAllowed(file.getOriginalFilename())) {
+            if (!mediaService.isFileAllowed(file.getOriginalFilename())) {
                 log.warn("Upload rejected: unsupported file type - {}", file.getOriginalFilename());
                 return ResponseEntity.badRequest()
-                        .body(Map.of(ERROR_KEY, "File type not supported. Allowed: " + cloudinaryService.getAllowedExtensions()));
+                        .body(Map.of(ERROR_KEY, "File type not supported. Allowed: " + mediaService.getAllowedExtensions()));
             }
 
-            // Upload to Cloudinary
-            log.debug("Uploading file to Cloudinary...");
-            Map<String, Object> uploadResult = cloudinaryService.uploadFile(file);
+            // Upload to storage
+            log.debug("Uploading file to storage...");
+            Map<String, Object> uploadResult = mediaService.uploadFile(file);
 
-            MediaUploadResponse response = MediaUploadResponse.builder()
-                    .url((String) uploadResult.get("url"))
-                    .publicId((String) uploadResult.get("publicId"))
-                    .messageType((MessageType) uploadResult.get("messageType"))
-                    .fileName((String) uploadResult.get("fileName"))
-                    .fileSize((Long) uploadResult.get("fileSize"))
-                    .mimeType((String) uploadResult.get("mimeType"))
-                    .build();
+            MediaUploadResponse response = toUploadResponse(uploadResult);
 
             log.info("File uploaded successfully - url: {}, type: {}", response.getUrl(), response.getMessageType());
             return ResponseEntity.ok(response);
 
         } catch (IOException e) {
-            log.error("Failed to upload file to Cloudinary", e);
+            log.error("Failed to upload file to storage", e);
             return ResponseEntity.internalServerError()
                     .body(Map.of(ERROR_KEY, "Failed to upload file: " + e.getMessage()));
         } catch (IllegalArgumentException e) {
@@ -111,6 +113,100 @@ public class MediaController {
         }
     }
 
+    @Operation(
+            summary = "Start a resumable upload",
+            description = """
+                    Open a chunked upload session. Send the file with `PUT /api/media/uploads/{uploadId}?offset=N`,
+                    in any order and concurrently if desired, then call `POST /api/media/uploads/{uploadId}/complete`.
+                    After a failure, `GET /api/media/uploads/{uploadId}` returns the offset to resume from.
+                    Idle sessions expire.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Session created",
+                    content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "File type not supported or file too large"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "429", description = "Too many open upload sessions")
+    })
+    @PostMapping("/uploads")
+    public ResponseEntity<?> createUploadSession(
+            @Valid @RequestBody CreateUploadSessionRequest request,
+            Principal principal
+    ) {
+        return handleUpload(principal, owner -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(chunkedUploadService.createSession(owner, request)));
+    }
+
+    @Operation(
+            summary = "Upload a chunk",
+            description = "Write the raw request body at the given byte offset of a resumable upload"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Chunk stored",
+                    content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Offset outside the file or chunk too large"),
+            @ApiResponse(responseCode = "404", description = "Session not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Session is completing")
+    })
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @Parameter(description = "Byte offset of the chunk in the file", required = true)
+            @RequestParam long offset,
+            HttpServletRequest request,
+            Principal principal
+    ) {
+        return handleUpload(principal, owner -> ResponseEntity.ok(chunkedUploadService.writeChunk(uploadId, owner,
+                offset, request.getContentLengthLong(), request.getInputStream())));
+    }
+
+    @Operation(
+            summary = "Get upload progress",
+            description = "Get the offset to resume a resumable upload from"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Session progress",
+                    content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Session not found or expired")
+    })
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadSession(@PathVariable String uploadId, Principal principal) {
+        return handleUpload(principal, owner -> ResponseEntity.ok(chunkedUploadService.getSession(uploadId, owner)));
+    }
+
+    @Operation(
+            summary = "Complete a resumable upload",
+            description = "Upload the assembled file to storage once every byte has been received"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "File uploaded successfully",
+                    content = @Content(schema = @Schema(implementation = MediaUploadResponse.class))),
+            @ApiResponse(responseCode = "400", description = "File content does not match its type"),
+            @ApiResponse(responseCode = "404", description = "Session not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Upload incomplete or chunks still in flight"),
+            @ApiResponse(responseCode = "500", description = "Upload failed")
+    })
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId, Principal principal) {
+        return handleUpload(principal, owner -> ResponseEntity.ok(
+                toUploadResponse(chunkedUploadService.complete(uploadId, owner))));
+    }
+
+    @Operation(summary = "Cancel a resumable upload", description = "Abandon a session and discard its chunks")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Session cancelled"),
+            @ApiResponse(responseCode = "404", description = "Session not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Session is completing")
+    })
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId, Principal principal) {
+        return handleUpload(principal, owner -> {
+            chunkedUploadService.cancel(uploadId, owner);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
     @Operation(
             summary = "Get allowed file extensions",
             description = "Retrieve list of supported file extensions for media upload"
@@ -119,6 +215,54 @@ public class MediaController {
     @GetMapping("/allowed-extensions")
     public ResponseEntity<Map<String, String>> getAllowedExtensions() {
         log.debug("Fetching allowed file extensions");
-        return ResponseEntity.ok(Map.of("extensions", cloudinaryService.getAllowedExtensions()));
+        return ResponseEntity.ok(Map.of("extensions", mediaService.getAllowedExtensions()));
+    }
+
+    private MediaUploadResponse toUploadResponse(Map<String, Object> uploadResult) {
+        return MediaUploadResponse.builder()
+                .url((String) uploadResult.get("url"))
+                .publicId((String) uploadResult.get("publicId"))
+                .messageType((MessageType) uploadResult.get("messageType"))
+                .fileName((String) uploadResult.get("fileName"))
+                .fileSize((Long) uploadResult.get("fileSize"))
+                .mimeType((String) uploadResult.get("mimeType"))
+                .thumbnailUrl((String) uploadResult.get("thumbnailUrl"))
+                .mediaWidth((Integer) uploadResult.get("mediaWidth"))
+                .mediaHeight((Integer) uploadResult.get("mediaHeight"))
+                .blurHash((String) uploadResult.get("blurHash"))
+                .build();
+    }
+
+    /**
+     * Run a resumable upload action as the authenticated user. Sessions belong to their
+     * owner, so anonymous requests are rejected instead of sharing a null owner.
+     */
+    private ResponseEntity<?> handleUpload(Principal principal, UploadAction action) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(ERROR_KEY, "Authentication required"));
+        }
+        try {
+            return action.run(principal.getName());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(ERROR_KEY, e.getMessage()));
+        } catch (ChunkedUploadService.SessionLimitException e) {
+            log.warn("Upload session refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of(ERROR_KEY, e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Upload conflict: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(ERROR_KEY, e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Upload rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(ERROR_KEY, e.getMessage()));
+        } catch (IOException e) {
+            log.error("Resumable upload failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(ERROR_KEY, "Failed to upload file: " + e.getMessage()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface UploadAction {
+        ResponseEntity<?> run(String owner) throws IOException;
     }
 }
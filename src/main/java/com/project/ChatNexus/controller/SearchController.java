@@ -0,0 +1,70 @@
+package com.project.ChatNexus.controller;
+
+import com.project.ChatNexus.dto.response.MessageSearchResponse;
+import com.project.ChatNexus.service.MessageSearchIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Controller for full-text search over the requester's direct and group messages.
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Search", description = "Message search")
+public class SearchController {
+
+    private final MessageSearchIndex messageSearchIndex;
+
+    @Operation(
+            summary = "Search messages",
+            description = """
+                    Search the text of messages in your direct chats and the groups you belong to.
+
+                    Words must all match. Use `"quoted phrases"`, `-word` to exclude, `prefix*` and `a | b` for either.
+                    Matches are wrapped in `<mark>` in the HTML-escaped `highlight`.
+                    """
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "One page of results",
+                    content = @Content(schema = @Schema(implementation = MessageSearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty query or invalid page"),
+            @ApiResponse(responseCode = "401", description = "Not authenticated"),
+            @ApiResponse(responseCode = "503", description = "Search is disabled")
+    })
+    @GetMapping("/messages")
+    public ResponseEntity<?> searchMessages(
+            @Parameter(description = "Search text", required = true) @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "`relevance` or `recent`") @RequestParam(defaultValue = "relevance") String sort,
+            Principal principal
+    ) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Authentication required"));
+        }
+        try {
+            return ResponseEntity.ok(messageSearchIndex.search(principal.getName(), q, page, size,
+                    "recent".equalsIgnoreCase(sort)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
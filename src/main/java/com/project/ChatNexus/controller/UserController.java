@@ -16,11 +16,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -40,15 +42,19 @@ public class UserController {
     /**
      * Handle user connection via WebSocket.
      * Saves/updates user status and broadcasts to all connected clients.
+     * The username is taken from the authenticated session, not the payload.
      *
-     * @param user the connecting user
+     * @param user           the connecting user
+     * @param principal      the user authenticated at STOMP CONNECT
+     * @param headerAccessor the STOMP headers of the current session
      * @return the user object for broadcast
      */
     @MessageMapping("/user.addUser")
     @SendTo("/topic/public")
-    public User addUser(@Payload User user) {
+    public User addUser(@Payload User user, Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        user.setUsername(principal.getName());
         log.info("User connecting: {} ({})", user.getUsername(), user.getFullName());
-        userService.saveUser(user);
+        userService.saveUser(user, headerAccessor.getSessionId());
         log.debug("User {} status set to ONLINE", user.getUsername());
         return user;
     }
@@ -57,14 +63,17 @@ public class UserController {
      * Handle user disconnection via WebSocket.
      * Updates user status and broadcasts to all connected clients.
      *
-     * @param user the disconnecting user
+     * @param user           the disconnecting user
+     * @param principal      the user authenticated at STOMP CONNECT
+     * @param headerAccessor the STOMP headers of the current session
      * @return the user object for broadcast
      */
     @MessageMapping("/user.disconnectUser")
     @SendTo("/topic/public")
-    public User disconnect(@Payload User user) {
+    public User disconnect(@Payload User user, Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        user.setUsername(principal.getName());
         log.info("User disconnecting: {}", user.getUsername());
-        userService.disconnect(user);
+        userService.disconnect(user, headerAccessor.getSessionId());
         log.debug("User {} status set to OFFLINE", user.getUsername());
         return user;
     }
@@ -15,5 +15,11 @@ public class MediaUploadResponse {
     private String fileName;
     private Long fileSize;
     private String mimeType;
+
+    // Preview fields, filled in by the media preview stage
+    private String thumbnailUrl;
+    private Integer mediaWidth;
+    private Integer mediaHeight;
+    private String blurHash;
 }
 
@@ -0,0 +1,24 @@
+package com.project.ChatNexus.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One page of conversation history, ordered oldest to newest.
+ * Pass {@code olderCursor} as {@code before} to load earlier messages,
+ * or {@code newerCursor} as {@code after} to catch up on newer ones.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageResponse<T> {
+    private List<T> messages;
+    private String olderCursor;
+    private String newerCursor;
+
+    // Whether more messages exist in the requested direction
+    private boolean hasMore;
+}
@@ -0,0 +1,24 @@
+package com.project.ChatNexus.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One page of message search results across the requester's direct and group chats.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+    private String query;
+    private int page;
+    private int size;
+
+    // Matching messages, counted exactly up to 1000
+    private long totalHits;
+    private boolean hasMore;
+    private List<MessageSearchResult> results;
+}
@@ -0,0 +1,35 @@
+package com.project.ChatNexus.dto.response;
+
+import com.project.ChatNexus.model.MessageType;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * A message matching a search, with the matching passages of its content highlighted.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResult {
+
+    public enum Conversation { DIRECT, GROUP }
+
+    private String messageId;
+    private Conversation conversation;
+
+    // chatId for direct messages, groupId for group messages
+    private String chatId;
+    private String groupId;
+
+    private String senderId;
+    private String senderName;
+    private String recipientId;
+    private MessageType messageType;
+    private Date timestamp;
+
+    // HTML-escaped content with matches wrapped in <mark>
+    private String highlight;
+}
@@ -0,0 +1,21 @@
+package com.project.ChatNexus.dto.response;
+
+import lombok.*;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UploadSessionResponse {
+    private String uploadId;
+    private String fileName;
+    private Long totalSize;
+    /** Bytes received contiguously from the start; the next chunk to send begins here. */
+    private Long offset;
+    /** Bytes received in total, including chunks past gaps. */
+    private Long receivedBytes;
+    private Date expiresAt;
+}
@@ -53,11 +53,11 @@ public class GlobalExceptionHandler {
 
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.put("status", HttpStatus.CONTENT_TOO_LARGE.value());
         response.put("error", "File Too Large");
         response.put("message", "File size exceeds the maximum allowed limit of 50MB");
 
-        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+        return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(response);
     }
 
     /**
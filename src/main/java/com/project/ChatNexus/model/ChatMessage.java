@@ -2,6 +2,9 @@ package com.project.ChatNexus.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -12,6 +15,11 @@ import java.util.Date;
 @AllArgsConstructor
 @Builder
 @Document(collection = "chat_messages")
+@CompoundIndexes({
+        @CompoundIndex(name = "chat_history_idx", def = "{'chatId': 1, 'timeStamp': 1, '_id': 1}"),
+        @CompoundIndex(name = "chat_recipient_status_idx", def = "{'recipientId': 1, 'status': 1}"),
+        @CompoundIndex(name = "chat_recipient_sender_status_idx", def = "{'recipientId': 1, 'senderId': 1, 'status': 1}")
+})
 public class ChatMessage {
     @Id
     private String id;
@@ -28,9 +36,16 @@ public class ChatMessage {
     @Builder.Default
     private MessageType messageType = MessageType.TEXT;
     private String mediaUrl;
+    @Indexed(name = "chat_media_public_id_idx", sparse = true)
     private String mediaPublicId;
     private String fileName;
     private Long fileSize;
     private String mimeType;
+
+    // Preview fields, filled in by the media preview stage
+    private String thumbnailUrl;
+    private Integer mediaWidth;
+    private Integer mediaHeight;
+    private String blurHash;
 }
 
@@ -2,6 +2,7 @@ package com.project.ChatNexus.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Getter
@@ -10,6 +11,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "chat_rooms")
+@CompoundIndex(name = "chat_room_participants_idx", def = "{'senderId': 1, 'recipientId': 1}", unique = true)
 public class ChatRoom {
     @Id
     private String id;
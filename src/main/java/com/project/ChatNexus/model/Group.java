@@ -2,9 +2,12 @@ package com.project.ChatNexus.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -14,12 +17,14 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "groups")
+@CompoundIndex(name = "group_member_recent_idx", def = "{'memberIds': 1, 'lastMessageTime': -1}")
 public class Group {
     @Id
     private String id;
 
     private String name;
     private String description;
+    @Indexed
     private String creatorId;
 
     @Builder.Default
@@ -32,6 +37,15 @@ public class Group {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Sequence of the latest message, incremented atomically on every save
+    private long messageSeq;
+
+    // Last message snapshot for the sidebar
+    private String lastMessage;
+    private String lastMessageSender;
+    private Date lastMessageTime;
+    private MessageType lastMessageType;
+
     public void addMember(String memberId) {
         if (memberIds == null) {
             memberIds = new HashSet<>();
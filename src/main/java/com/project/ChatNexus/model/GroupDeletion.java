@@ -0,0 +1,48 @@
+package com.project.ChatNexus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Progress of the background cascade that removes a deleted group's messages,
+ * media references and read status. Kept until a week after completion.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "group_deletions")
+public class GroupDeletion {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    /** The deleted group's ID. */
+    @Id
+    private String id;
+
+    private Status status;
+    private String requestedBy;
+
+    private long totalMessages;
+    private long messagesDeleted;
+    private long mediaReleased;
+    private long readStatusesDeleted;
+
+    private Date createdAt;
+    private Date startedAt;
+    @Indexed(name = "group_deletions_expiry_idx", expireAfter = "7d")
+    private Date completedAt;
+    private String lastError;
+    /** Failed runs since the job was created or last resumed on startup. */
+    private int attempts;
+
+    /** The run currently working on the job, set while it holds the lease. */
+    private String claimedBy;
+    /** When the current claim expires and another instance may take the job over. */
+    private Date leaseUntil;
+}
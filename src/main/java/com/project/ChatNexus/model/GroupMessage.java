@@ -2,6 +2,8 @@ package com.project.ChatNexus.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -12,7 +14,11 @@ import java.util.Date;
 @AllArgsConstructor
 @Builder
 @Document(collection = "group_messages")
+@CompoundIndex(name = "group_history_idx", def = "{'groupId': 1, 'timestamp': 1, '_id': 1}")
 public class GroupMessage {
+    /** Sender ID of server-generated messages; reserved, so no user can register it. */
+    public static final String SYSTEM_SENDER_ID = "SYSTEM";
+
     @Id
     private String id;
 
@@ -21,13 +27,21 @@ public class GroupMessage {
     private String senderName;
     private String content;
     private Date timestamp;
+    private Long seq;
 
     // Media fields
     @Builder.Default
     private MessageType messageType = MessageType.TEXT;
     private String mediaUrl;
+    @Indexed(name = "group_media_public_id_idx", sparse = true)
     private String mediaPublicId;
     private String fileName;
     private Long fileSize;
     private String mimeType;
+
+    // Preview fields, filled in by the media preview stage
+    private String thumbnailUrl;
+    private Integer mediaWidth;
+    private Integer mediaHeight;
+    private String blurHash;
 }
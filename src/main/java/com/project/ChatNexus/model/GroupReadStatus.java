@@ -3,13 +3,15 @@ package com.project.ChatNexus.model;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
 
 /**
  * Tracks when each user last read messages in a group.
- * Used to calculate unread message counts.
+ * Unread count is the group's message sequence minus {@code lastReadSeq}, less the
+ * user's own messages sent since then.
  */
 @Getter
 @Setter
@@ -23,6 +25,11 @@ public class GroupReadStatus {
     private String id;
 
     private String userId;
+    @Indexed
     private String groupId;
     private Date lastReadTimestamp;
+    private long lastReadSeq;
+
+    // Messages the user sent after lastReadSeq; reset when the group is read
+    private long ownMessagesSinceRead;
 }
@@ -0,0 +1,40 @@
+package com.project.ChatNexus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Denormalized per-user view of a 1-to-1 conversation.
+ * Kept up to date on every message save and read, so the
+ * contacts list can be served without aggregating chat messages.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "inbox")
+@CompoundIndexes({
+        @CompoundIndex(name = "inbox_user_partner_idx", def = "{'userId': 1, 'partnerId': 1}", unique = true),
+        @CompoundIndex(name = "inbox_user_recent_idx", def = "{'userId': 1, 'lastMessageTime': -1}")
+})
+public class InboxEntry {
+    @Id
+    private String id;
+
+    private String userId;
+    private String partnerId;
+
+    // Last message preview
+    private String lastMessage;
+    private MessageType lastMessageType;
+    private Date lastMessageTime;
+    private String lastMessageSenderId;
+
+    private long unreadCount;
+}
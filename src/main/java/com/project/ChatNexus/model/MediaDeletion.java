@@ -0,0 +1,34 @@
+package com.project.ChatNexus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Outbox entry for a stored media file that must be deleted.
+ * Entries are removed once storage confirmed the deletion; an entry whose
+ * {@code nextAttemptAt} is null gave up after too many failures.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "media_deletions")
+public class MediaDeletion {
+    @Id
+    private String id;
+
+    private String publicId;
+    private MessageType messageType;
+
+    @Indexed(name = "media_deletions_due_idx", sparse = true)
+    private Date nextAttemptAt;
+    private String claimedBy;
+    private int attempts;
+    private String lastError;
+    private Date createdAt;
+}
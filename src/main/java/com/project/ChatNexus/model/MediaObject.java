@@ -0,0 +1,45 @@
+package com.project.ChatNexus.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A stored media file, keyed by the SHA-256 of its content.
+ * Every upload of the same content shares this object and every message sending it
+ * adds a reference; the file is deleted from storage once no message references it
+ * and it was not uploaded recently.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "media_objects")
+public class MediaObject {
+    /** Hex SHA-256 of the file content. */
+    @Id
+    private String id;
+
+    @Indexed(name = "media_objects_public_id_idx", unique = true)
+    private String publicId;
+    private String url;
+    private MessageType messageType;
+    private long size;
+
+    // Preview, filled in asynchronously after upload
+    private String thumbnailUrl;
+    private String thumbnailPublicId;
+    private Integer width;
+    private Integer height;
+    private String blurHash;
+
+    /** Messages referencing the file. */
+    private long refCount;
+    private Date createdAt;
+    /** Last upload of the content; unreferenced objects expire a grace period after it. */
+    private Date lastReferencedAt;
+}
@@ -34,8 +34,16 @@ public class User implements UserDetails {
     private Status status;
     private LocalDateTime lastSeen;
 
+    /**
+     * Grants access to the management endpoints under {@code /actuator}; set directly in the database.
+     */
+    private boolean admin;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        if (admin) {
+            return List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
         return List.of(new SimpleGrantedAuthority("ROLE_USER"));
     }
 
@@ -4,6 +4,7 @@ import com.project.ChatNexus.model.GroupReadStatus;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,6 +12,8 @@ public interface GroupReadStatusRepository extends MongoRepository<GroupReadStat
 
     Optional<GroupReadStatus> findByUserIdAndGroupId(String userId, String groupId);
 
+    List<GroupReadStatus> findByGroupId(String groupId);
+
     void deleteByGroupId(String groupId);
 
     void deleteByUserIdAndGroupId(String userId, String groupId);
@@ -0,0 +1,11 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.InboxEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InboxEntryRepository extends MongoRepository<InboxEntry, String> {
+
+    boolean existsByUserId(String userId);
+}
@@ -0,0 +1,15 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.MessageStatus;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveChatMessageRepository extends ReactiveMongoRepository<ChatMessage, String> {
+
+    Flux<ChatMessage> findByChatId(String chatId);
+
+    Flux<ChatMessage> findByRecipientIdAndStatus(String recipientId, MessageStatus status);
+}
@@ -0,0 +1,12 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.GroupMessage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGroupMessageRepository extends ReactiveMongoRepository<GroupMessage, String> {
+
+    Flux<GroupMessage> findByGroupIdOrderByTimestampAsc(String groupId);
+}
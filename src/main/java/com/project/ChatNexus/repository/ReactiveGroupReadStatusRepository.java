@@ -0,0 +1,12 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.GroupReadStatus;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGroupReadStatusRepository extends ReactiveMongoRepository<GroupReadStatus, String> {
+
+    Flux<GroupReadStatus> findByUserId(String userId);
+}
@@ -0,0 +1,12 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.Group;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGroupRepository extends ReactiveMongoRepository<Group, String> {
+
+    Flux<Group> findByMemberIdsContainingOrderByLastMessageTimeDesc(String userId);
+}
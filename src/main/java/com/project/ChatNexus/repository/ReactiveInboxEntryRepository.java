@@ -0,0 +1,12 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.InboxEntry;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveInboxEntryRepository extends ReactiveMongoRepository<InboxEntry, String> {
+
+    Flux<InboxEntry> findByUserIdOrderByLastMessageTimeDesc(String userId);
+}
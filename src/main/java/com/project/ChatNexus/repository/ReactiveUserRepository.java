@@ -0,0 +1,14 @@
+package com.project.ChatNexus.repository;
+
+import com.project.ChatNexus.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+
+    Flux<User> findByUsernameIn(Collection<String> usernames);
+}
@@ -5,6 +5,7 @@ import com.project.ChatNexus.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +19,7 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByUsername(String username);
 
     List<User> findByUsernameContainingIgnoreCase(String username);
+
+    List<User> findByUsernameIn(Collection<String> usernames);
 }
 
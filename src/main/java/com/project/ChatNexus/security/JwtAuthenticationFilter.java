@@ -1,11 +1,13 @@
 package com.project.ChatNexus.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.lang.NonNull;
+import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,6 +24,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Value("${jwt.stateless-principal:true}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -30,9 +36,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
 
-        // Skip JWT filter for public endpoints
+        // Skip JWT filter for public endpoints; logout needs the caller's token
         String path = request.getServletPath();
-        if (path.startsWith("/api/auth/") || path.startsWith("/ws") ||
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register") || path.startsWith("/ws") ||
             path.equals("/") || path.endsWith(".html") ||
             path.endsWith(".css") || path.endsWith(".js")) {
             filterChain.doFilter(request, response);
@@ -50,17 +56,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            username = jwtService.extractUsername(jwt);
+            Claims claims = jwtService.verifyToken(jwt);
+            username = claims.getSubject();
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !tokenRevocationRegistry.isRevoked(username, claims.getIssuedAt())) {
+                UsernamePasswordAuthenticationToken authToken = statelessPrincipal
+                        ? fromClaims(claims)
+                        : fromUserDetails(claims);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
+                if (authToken != null) {
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
@@ -71,4 +76,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Build the authentication from the verified claims alone. The user was
+     * validated against the database when the token was issued.
+     */
+    private UsernamePasswordAuthenticationToken fromClaims(Claims claims) {
+        return new UsernamePasswordAuthenticationToken(
+                claims.getSubject(),
+                null,
+                jwtService.extractAuthorities(claims)
+        );
+    }
+
+    /**
+     * Build the authentication from the stored user, rejecting tokens whose user no longer exists.
+     */
+    private UsernamePasswordAuthenticationToken fromUserDetails(Claims claims) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!jwtService.isTokenValid(claims, userDetails)) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
 }
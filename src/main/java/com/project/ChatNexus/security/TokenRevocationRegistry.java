@@ -0,0 +1,60 @@
+package com.project.ChatNexus.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation list for stateless JWT authentication.
+ * Revoking a user invalidates every token issued to them before that moment,
+ * without a database lookup on the request path. Revocations are kept per
+ * instance and are lost on restart: a logout only takes effect on the instance
+ * that handled it. An entry is dropped once every token it covers has expired.
+ */
+@Component
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private final ConcurrentHashMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final long jwtExpiration;
+
+    public TokenRevocationRegistry(@Value("${jwt.expiration}") long jwtExpiration) {
+        this.jwtExpiration = jwtExpiration;
+    }
+
+    /**
+     * Revoke all tokens issued to a user before the current second.
+     *
+     * @param username the user whose tokens are revoked
+     */
+    public void revokeAll(String username) {
+        // JWT iat has second precision, so a token issued later in this second stays valid
+        long cutoff = System.currentTimeMillis() / 1000 * 1000;
+        revokedBefore.merge(username, cutoff, Math::max);
+        log.info("Revoked tokens issued to {}", username);
+        pruneExpired();
+    }
+
+    /**
+     * Check whether a token has been revoked.
+     *
+     * @param username the token subject
+     * @param issuedAt the token issue time, may be null
+     * @return true if the token must be rejected
+     */
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long cutoff = revokedBefore.get(username);
+        return cutoff != null && (issuedAt == null || issuedAt.getTime() < cutoff);
+    }
+
+    /**
+     * Drop revocations older than the token lifetime; every token they cover has expired.
+     */
+    void pruneExpired() {
+        long oldestLiveIssue = System.currentTimeMillis() - jwtExpiration;
+        revokedBefore.values().removeIf(cutoff -> cutoff < oldestLiveIssue);
+    }
+}
@@ -3,9 +3,11 @@ package com.project.ChatNexus.service;
 import com.project.ChatNexus.dto.request.LoginRequest;
 import com.project.ChatNexus.dto.request.RegisterRequest;
 import com.project.ChatNexus.dto.response.AuthResponse;
+import com.project.ChatNexus.model.GroupMessage;
 import com.project.ChatNexus.model.Status;
 import com.project.ChatNexus.model.User;
 import com.project.ChatNexus.security.JwtService;
+import com.project.ChatNexus.security.TokenRevocationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,6 +30,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     /**
      * Register a new user.
@@ -39,6 +42,12 @@ public class AuthService {
     public AuthResponse register(RegisterRequest request) {
         log.info("Processing registration for username: {}", request.getUsername());
 
+        // Reserved for server-generated group messages
+        if (GroupMessage.SYSTEM_SENDER_ID.equalsIgnoreCase(request.getUsername())) {
+            log.warn("Registration failed - reserved username: {}", request.getUsername());
+            throw new RuntimeException("Username is reserved");
+        }
+
         if (userService.existsByUsername(request.getUsername())) {
             log.warn("Registration failed - username already exists: {}", request.getUsername());
             throw new RuntimeException("Username already exists");
@@ -104,5 +113,14 @@ public class AuthService {
                 .message("Login successful")
                 .build();
     }
-}
 
+    /**
+     * Log a user out of every session by revoking all tokens issued to them so far.
+     *
+     * @param username the user logging out
+     */
+    public void logout(String username) {
+        tokenRevocationRegistry.revokeAll(username);
+        log.info("User logged out: {}", username);
+    }
+}
@@ -1,15 +1,17 @@
 package com.project.ChatNexus.service;
 
-import com.project.ChatNexus.dto.response.ChatContactResponse;
+import com.mongodb.client.result.UpdateResult;
 import com.project.ChatNexus.model.ChatMessage;
 import com.project.ChatNexus.model.MessageStatus;
-import com.project.ChatNexus.model.User;
 import com.project.ChatNexus.repository.ChatMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -25,6 +27,12 @@ public class ChatMessageService {
     private final ChatMessageRepository chatMessageRepository;
     private final ChatRoomService chatRoomService;
     private final UserService userService;
+    private final InboxService inboxService;
+    private final MongoTemplate mongoTemplate;
+    private final MessageWriteBehind messageWriteBehind;
+    private final MediaPreviewService mediaPreviewService;
+    private final MediaService mediaService;
+    private final MessageSearchIndex messageSearchIndex;
 
     /**
      * Save a chat message.
@@ -35,18 +43,18 @@ public class ChatMessageService {
     public ChatMessage save(ChatMessage chatMessage) {
         log.debug("Saving message from {} to {}", chatMessage.getSenderId(), chatMessage.getRecipientId());
 
-        var chatId = chatRoomService.getChatRoomId(
-                chatMessage.getSenderId(),
-                chatMessage.getRecipientId(),
-                true).orElseThrow(() -> {
-                    log.error("Failed to get/create chat room for {} and {}",
-                            chatMessage.getSenderId(), chatMessage.getRecipientId());
-                    return new RuntimeException("Failed to create chat room");
-                });
+        var chatId = chatRoomService.getOrCreateChatId(chatMessage.getSenderId(), chatMessage.getRecipientId());
 
         chatMessage.setChatId(chatId);
         chatMessage.setTimeStamp(new Date());
 
+        // Preview fields come from the server only; messages sent before it is ready are filled in later
+        MediaPreviewService.Preview preview = mediaPreviewService.find(chatMessage.getMediaPublicId()).orElse(null);
+        chatMessage.setThumbnailUrl(preview != null ? preview.thumbnailUrl() : null);
+        chatMessage.setMediaWidth(preview != null ? preview.width() : null);
+        chatMessage.setMediaHeight(preview != null ? preview.height() : null);
+        chatMessage.setBlurHash(preview != null ? preview.blurHash() : null);
+
         if (userService.isUserOnline(chatMessage.getRecipientId())) {
             chatMessage.setStatus(MessageStatus.DELIVERED);
             log.debug("Recipient {} is online, setting status to DELIVERED", chatMessage.getRecipientId());
@@ -55,24 +63,27 @@ public class ChatMessageService {
             log.debug("Recipient {} is offline, setting status to SENT", chatMessage.getRecipientId());
         }
 
+        if (messageWriteBehind.isEnabled()) {
+            chatMessage.setId(messageWriteBehind.nextId());
+            messageWriteBehind.submit(chatMessage, () -> afterPersist(chatMessage));
+            log.debug("Message {} queued for persistence", chatMessage.getId());
+            return chatMessage;
+        }
+
         ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
+        afterPersist(savedMessage);
         log.info("Message saved with ID: {}", savedMessage.getId());
         return savedMessage;
     }
 
     /**
-     * Find all messages between two users.
-     *
-     * @param senderId    the sender's ID
-     * @param recipientId the recipient's ID
-     * @return list of messages
+     * Record a persisted message in the inbox, count its reference to any media it carries
+     * and make it searchable. Never indexes a message that failed to save.
      */
-    public List<ChatMessage> findChatMessages(String senderId, String recipientId) {
-        log.debug("Finding messages between {} and {}", senderId, recipientId);
-        var chatId = chatRoomService.getChatRoomId(senderId, recipientId, false);
-        List<ChatMessage> messages = chatId.map(chatMessageRepository::findByChatId).orElse(new ArrayList<>());
-        log.debug("Found {} messages", messages.size());
-        return messages;
+    private void afterPersist(ChatMessage message) {
+        inboxService.recordMessage(message);
+        mediaService.referenceFile(message.getMediaPublicId());
+        messageSearchIndex.index(message);
     }
 
     /**
@@ -89,17 +100,23 @@ public class ChatMessageService {
     }
 
     /**
-     * Mark multiple messages as delivered.
+     * Mark multiple messages as delivered in a single bulk update.
+     * Only messages still in SENT state are transitioned.
      *
      * @param messages list of messages to mark
      */
     public void markMessagesAsDelivered(List<ChatMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
         log.debug("Marking {} messages as delivered", messages.size());
-        messages.forEach(msg -> {
-            msg.setStatus(MessageStatus.DELIVERED);
-            chatMessageRepository.save(msg);
-        });
-        log.info("Marked {} messages as DELIVERED", messages.size());
+        List<String> ids = messages.stream().map(ChatMessage::getId).toList();
+        UpdateResult result = mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids).and("status").is(MessageStatus.SENT)),
+                new Update().set("status", MessageStatus.DELIVERED),
+                ChatMessage.class);
+        messages.forEach(msg -> msg.setStatus(MessageStatus.DELIVERED));
+        log.info("Marked {} messages as DELIVERED", result.getModifiedCount());
     }
 
     /**
@@ -109,11 +126,13 @@ public class ChatMessageService {
      */
     public void markMessageAsDelivered(String messageId) {
         log.debug("Marking message {} as delivered", messageId);
-        chatMessageRepository.findById(messageId).ifPresent(msg -> {
-            msg.setStatus(MessageStatus.DELIVERED);
-            chatMessageRepository.save(msg);
+        UpdateResult result = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(messageId).and("status").is(MessageStatus.SENT)),
+                new Update().set("status", MessageStatus.DELIVERED),
+                ChatMessage.class);
+        if (result.getModifiedCount() > 0) {
             log.debug("Message {} marked as DELIVERED", messageId);
-        });
+        }
     }
 
     /**
@@ -124,19 +143,15 @@ public class ChatMessageService {
      */
     public void markMessagesAsRead(String senderId, String recipientId) {
         log.debug("Marking messages as read - sender: {}, recipient: {}", senderId, recipientId);
-        var chatId = chatRoomService.getChatRoomId(senderId, recipientId, false);
-        chatId.ifPresent(id -> {
-            List<ChatMessage> messages = chatMessageRepository.findByChatId(id);
-            int count = 0;
-            for (ChatMessage msg : messages) {
-                if (msg.getRecipientId().equals(recipientId) && msg.getStatus() != MessageStatus.READ) {
-                    msg.setStatus(MessageStatus.READ);
-                    chatMessageRepository.save(msg);
-                    count++;
-                }
-            }
-            log.info("Marked {} messages as READ", count);
-        });
+        var chatId = chatRoomService.getChatId(senderId, recipientId);
+        UpdateResult result = mongoTemplate.updateMulti(
+                new Query(Criteria.where("chatId").is(chatId)
+                        .and("recipientId").is(recipientId)
+                        .and("status").ne(MessageStatus.READ)),
+                new Update().set("status", MessageStatus.READ).set("readTimestamp", new Date()),
+                ChatMessage.class);
+        inboxService.markAsRead(recipientId, senderId);
+        log.info("Marked {} messages as READ", result.getModifiedCount());
     }
 
     /**
@@ -152,6 +167,7 @@ public class ChatMessageService {
 
     /**
      * Mark messages as read and return the updated messages.
+     * The returned messages only carry the fields needed for read receipts.
      *
      * @param senderId    the sender's ID
      * @param recipientId the recipient's ID
@@ -159,80 +175,30 @@ public class ChatMessageService {
      */
     public List<ChatMessage> markMessagesAsReadAndReturn(String senderId, String recipientId) {
         log.debug("Marking messages as read and returning - sender: {}, recipient: {}", senderId, recipientId);
-        var chatId = chatRoomService.getChatRoomId(senderId, recipientId, false);
-        List<ChatMessage> readMessages = new ArrayList<>();
-
-        chatId.ifPresent(id -> {
-            List<ChatMessage> messages = chatMessageRepository.findByChatId(id);
-            messages.stream()
-                    .filter(msg -> msg.getSenderId().equals(senderId) &&
-                            msg.getRecipientId().equals(recipientId) &&
-                            msg.getStatus() != MessageStatus.READ)
-                    .forEach(msg -> {
-                        msg.setStatus(MessageStatus.READ);
-                        msg.setReadTimestamp(new Date());
-                        chatMessageRepository.save(msg);
-                        readMessages.add(msg);
-                    });
-        });
-
-        log.info("Marked {} messages as READ", readMessages.size());
-        return readMessages;
-    }
-
-    /**
-     * Get chat contacts for a user with last message info.
-     *
-     * @param userId the user's ID
-     * @return list of chat contacts sorted by last message time
-     */
-    public List<ChatContactResponse> getChatContacts(String userId) {
-        log.debug("Getting chat contacts for user: {}", userId);
-        List<String> chatPartners = chatRoomService.getChatPartners(userId);
-        List<ChatContactResponse> contacts = new ArrayList<>();
-
-        for (String partnerId : chatPartners) {
-            User partner = userService.findByUsername(partnerId).orElse(null);
-            if (partner == null) {
-                log.warn("Partner user not found: {}", partnerId);
-                continue;
-            }
-
-            var chatId = chatRoomService.getChatRoomId(userId, partnerId, false);
-
-            if (chatId.isPresent()) {
-                var lastMessage = chatMessageRepository.findTopByChatIdOrderByTimeStampDesc(chatId.get());
-
-                long unreadCount = chatMessageRepository.countByRecipientIdAndSenderIdAndStatusNot(
-                        userId, partnerId, MessageStatus.READ);
-
-                ChatContactResponse contact = ChatContactResponse.builder()
-                        .username(partner.getUsername())
-                        .fullName(partner.getFullName())
-                        .status(partner.getStatus())
-                        .lastMessage(lastMessage.map(ChatMessage::getContent).orElse(null))
-                        .lastMessageType(lastMessage
-                                .map(m -> m.getMessageType() != null ? m.getMessageType().name() : "TEXT").orElse(null))
-                        .lastMessageTime(lastMessage.map(ChatMessage::getTimeStamp).orElse(null))
-                        .lastMessageSenderId(lastMessage.map(ChatMessage::getSenderId).orElse(null))
-                        .unreadCount(unreadCount)
-                        .build();
-
-                contacts.add(contact);
-            }
+        var chatId = chatRoomService.getChatId(senderId, recipientId);
+        Query unreadQuery = new Query(Criteria.where("chatId").is(chatId)
+                .and("senderId").is(senderId)
+                .and("recipientId").is(recipientId)
+                .and("status").ne(MessageStatus.READ));
+        unreadQuery.fields().include("id", "senderId", "recipientId", "timeStamp");
+        List<ChatMessage> readMessages = mongoTemplate.find(unreadQuery, ChatMessage.class);
+        if (readMessages.isEmpty()) {
+            return readMessages;
         }
 
-        contacts.sort((c1, c2) -> {
-            if (c1.getLastMessageTime() == null && c2.getLastMessageTime() == null)
-                return 0;
-            if (c1.getLastMessageTime() == null)
-                return 1;
-            if (c2.getLastMessageTime() == null)
-                return -1;
-            return c2.getLastMessageTime().compareTo(c1.getLastMessageTime());
+        Date readTimestamp = new Date();
+        List<String> ids = readMessages.stream().map(ChatMessage::getId).toList();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids)),
+                new Update().set("status", MessageStatus.READ).set("readTimestamp", readTimestamp),
+                ChatMessage.class);
+        readMessages.forEach(msg -> {
+            msg.setStatus(MessageStatus.READ);
+            msg.setReadTimestamp(readTimestamp);
         });
+        inboxService.markAsRead(recipientId, senderId);
 
-        log.debug("Found {} contacts for user {}", contacts.size(), userId);
-        return contacts;
+        log.info("Marked {} messages as READ", readMessages.size());
+        return readMessages;
     }
 }
@@ -4,45 +4,105 @@ import com.project.ChatNexus.model.ChatRoom;
 import com.project.ChatNexus.repository.ChatRoomRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Service handling chat room operations including creation and lookup.
+ * Chat IDs are derived from the sorted participant pair, so resolving
+ * them needs no query. Rooms created before that keep their original
+ * {@code sender_recipient} ID through an in-memory mapping.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ChatRoomService {
 
+    private static final int KNOWN_ROOMS_CAPACITY = 10_000;
+
     private final ChatRoomRepository chatRoomRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // Canonical chat ID -> legacy chat ID for rooms created with the old scheme
+    private final Map<String, String> legacyChatIds = new ConcurrentHashMap<>();
+    private volatile boolean legacyChatIdsLoaded = false;
+
+    // Recently ensured rooms, to skip the idempotent upsert on the hot path
+    private final Set<String> knownRooms = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > KNOWN_ROOMS_CAPACITY;
+                }
+            }));
+
+    /**
+     * Derive the canonical chat ID for two users, independent of who is the sender.
+     * Separator characters in usernames are escaped so that distinct pairs never collide.
+     *
+     * @param userA one participant
+     * @param userB the other participant
+     * @return the canonical chat ID
+     */
+    public static String canonicalChatId(String userA, String userB) {
+        String first = userA.compareTo(userB) <= 0 ? userA : userB;
+        String second = first.equals(userA) ? userB : userA;
+        return escape(first) + "_" + escape(second);
+    }
 
     /**
-     * Get or create a chat room ID for two users.
+     * Resolve the chat ID for two users without creating a room.
      *
      * @param senderId the sender's ID
      * @param recipientId the recipient's ID
-     * @param createNewRoomIfNotExists whether to create a new room if one doesn't exist
-     * @return optional containing the chat room ID
+     * @return the chat ID, legacy or canonical
      */
-    public Optional<String> getChatRoomId(String senderId, String recipientId, boolean createNewRoomIfNotExists) {
-        log.debug("Getting chat room for {} and {} (create: {})", senderId, recipientId, createNewRoomIfNotExists);
-
-        return chatRoomRepository
-                .findBySenderIdAndRecipientId(senderId, recipientId)
-                .map(ChatRoom::getChatId)
-                .or(() -> {
-                    if (createNewRoomIfNotExists) {
-                        var chatId = createChatId(senderId, recipientId);
-                        log.info("Created new chat room: {} for {} and {}", chatId, senderId, recipientId);
-                        return Optional.of(chatId);
-                    }
-                    log.debug("Chat room not found for {} and {}", senderId, recipientId);
-                    return Optional.empty();
-                });
+    public String getChatId(String senderId, String recipientId) {
+        String canonical = canonicalChatId(senderId, recipientId);
+        String legacy = legacyChatIds.get(canonical);
+        if (legacy != null) {
+            return legacy;
+        }
+
+        // Until the legacy mapping is loaded, fall back to a lookup for unknown pairs
+        if (!legacyChatIdsLoaded && !knownRooms.contains(canonical)) {
+            Optional<String> stored = chatRoomRepository.findBySenderIdAndRecipientId(senderId, recipientId)
+                    .map(ChatRoom::getChatId);
+            if (stored.isPresent() && !stored.get().equals(canonical)) {
+                legacyChatIds.put(canonical, stored.get());
+                return stored.get();
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Resolve the chat ID for two users and make sure the room metadata exists.
+     *
+     * @param senderId the sender's ID
+     * @param recipientId the recipient's ID
+     * @return the chat ID
+     */
+    public String getOrCreateChatId(String senderId, String recipientId) {
+        String chatId = getChatId(senderId, recipientId);
+        String canonical = canonicalChatId(senderId, recipientId);
+        if (!knownRooms.contains(canonical)) {
+            upsertRoom(chatId, senderId, recipientId);
+            upsertRoom(chatId, recipientId, senderId);
+            // Only after both writes, so a failed upsert is retried by the next message
+            knownRooms.add(canonical);
+            log.debug("Ensured chat room {} for {} and {}", chatId, senderId, recipientId);
+        }
+        return chatId;
     }
 
     /**
@@ -62,32 +122,48 @@ public class ChatRoomService {
     }
 
     /**
-     * Create a new chat room between two users.
-     *
-     * @param senderId the sender's ID
-     * @param recipientId the recipient's ID
-     * @return the new chat room ID
+     * Load chat IDs of rooms created before canonical IDs, so they keep resolving.
      */
-    private String createChatId(String senderId, String recipientId) {
-        var chatId = String.format("%s_%s", senderId, recipientId);
-        log.debug("Creating chat room with ID: {}", chatId);
-
-        ChatRoom senderRecipient = ChatRoom.builder()
-                .chatId(chatId)
-                .senderId(senderId)
-                .recipientId(recipientId)
-                .build();
-
-        ChatRoom recipientSender = ChatRoom.builder()
-                .chatId(chatId)
-                .senderId(recipientId)
-                .recipientId(senderId)
-                .build();
-
-        chatRoomRepository.save(senderRecipient);
-        chatRoomRepository.save(recipientSender);
-
-        log.debug("Chat room {} created successfully", chatId);
-        return chatId;
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLegacyChatIds() {
+        Thread worker = new Thread(() -> {
+            try {
+                Query query = new Query();
+                query.fields().include("chatId", "senderId", "recipientId");
+                Map<String, Set<String>> chatIdsByPair = new HashMap<>();
+                for (ChatRoom room : mongoTemplate.find(query, ChatRoom.class)) {
+                    chatIdsByPair.computeIfAbsent(canonicalChatId(room.getSenderId(), room.getRecipientId()),
+                            key -> new HashSet<>()).add(room.getChatId());
+                }
+
+                chatIdsByPair.forEach((canonical, chatIds) -> {
+                    if (!chatIds.contains(canonical)) {
+                        legacyChatIds.putIfAbsent(canonical, chatIds.iterator().next());
+                    }
+                });
+                legacyChatIdsLoaded = true;
+                log.info("Loaded {} legacy chat IDs", legacyChatIds.size());
+            } catch (Exception e) {
+                log.error("Failed to load legacy chat IDs: {}", e.getMessage());
+            }
+        }, "chat-id-loader");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Create the room document for one direction of a conversation if it does not exist.
+     * Relies on the unique (senderId, recipientId) index, so concurrent first messages
+     * never create duplicate rooms.
+     */
+    private void upsertRoom(String chatId, String senderId, String recipientId) {
+        mongoTemplate.upsert(
+                new Query(Criteria.where("senderId").is(senderId).and("recipientId").is(recipientId)),
+                new Update().setOnInsert("chatId", chatId),
+                ChatRoom.class);
+    }
+
+    private static String escape(String username) {
+        return username.replace("%", "%25").replace("_", "%5F");
     }
 }
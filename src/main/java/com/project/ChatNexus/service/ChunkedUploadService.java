@@ -0,0 +1,395 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.request.CreateUploadSessionRequest;
+import com.project.ChatNexus.dto.response.UploadSessionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable uploads: a client opens a session, sends the file as chunks at byte offsets,
+ * asks for the resume offset after a failure and completes the session once every byte arrived.
+ * Chunks are written straight from the request stream into a staged file with positional
+ * {@link FileChannel} writes, so chunks of one session may arrive concurrently and out of order.
+ * Storage is only contacted on completion. Idle sessions expire and their staged file is removed.
+ * Sessions live in memory, so an upload cannot be resumed across a restart. Open sessions
+ * are capped per owner and overall, since each one reserves its full size on disk.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final String STAGED_SUFFIX = ".part";
+
+    private final MediaService mediaService;
+    private final Path stagingDir;
+    private final long maxFileSize;
+    private final long maxChunkSize;
+    private final Duration sessionTtl;
+    private final int maxSessionsPerOwner;
+    private final int maxSessions;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private final Counter expiredCounter;
+
+    public ChunkedUploadService(MediaService mediaService,
+                                MeterRegistry meterRegistry,
+                                @Value("${media.chunked.staging-dir:${java.io.tmpdir}/chatnexus-uploads}") Path stagingDir,
+                                @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize,
+                                @Value("${media.chunked.max-chunk-size:8MB}") DataSize maxChunkSize,
+                                @Value("${media.chunked.session-ttl:1h}") Duration sessionTtl,
+                                @Value("${media.chunked.max-sessions-per-owner:5}") int maxSessionsPerOwner,
+                                @Value("${media.chunked.max-sessions:200}") int maxSessions) throws IOException {
+        this.mediaService = mediaService;
+        this.stagingDir = Files.createDirectories(stagingDir);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxChunkSize = maxChunkSize.toBytes();
+        this.sessionTtl = sessionTtl;
+        this.maxSessionsPerOwner = maxSessionsPerOwner;
+        this.maxSessions = maxSessions;
+        removeLeftoverFiles();
+
+        Gauge.builder("chatnexus.uploads.sessions.active", sessions, Map::size)
+                .description("Open resumable upload sessions")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("chatnexus.uploads.sessions.expired")
+                .description("Upload sessions dropped after being idle past their TTL")
+                .register(meterRegistry);
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepSeconds = Math.max(1, Math.min(60, sessionTtl.toSeconds() / 2));
+        sweeper.scheduleWithFixedDelay(this::expireIdleSessions, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Open an upload session and reserve its staged file.
+     *
+     * @param owner   the uploading user
+     * @param request file name, content type and total size
+     * @return the new session
+     * @throws SessionLimitException if the owner or the server has too many open sessions
+     */
+    public UploadSessionResponse createSession(String owner, CreateUploadSessionRequest request) throws IOException {
+        if (!mediaService.isFileAllowed(request.getFileName())) {
+            throw new IllegalArgumentException("File type not supported. Allowed: " + mediaService.getAllowedExtensions());
+        }
+        if (request.getTotalSize() > maxFileSize) {
+            throw new IllegalArgumentException("File size exceeds the maximum allowed limit of "
+                    + DataSize.ofBytes(maxFileSize).toMegabytes() + "MB");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path path = stagingDir.resolve(uploadId + STAGED_SUFFIX);
+        UploadSession session;
+        // Check and register together, so concurrent requests cannot overshoot the caps
+        synchronized (sessions) {
+            checkSessionLimits(owner);
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            session = new UploadSession(uploadId, owner, request.getFileName(),
+                    request.getContentType(), request.getTotalSize(), path, channel);
+            sessions.put(uploadId, session);
+        }
+        try {
+            // Extend to full length up front: positional transfers past the end of a file write nothing
+            session.channel.write(ByteBuffer.allocate(1), request.getTotalSize() - 1);
+        } catch (IOException e) {
+            discard(session);
+            throw e;
+        }
+        log.info("Upload session {} opened by {} for {} ({} bytes)",
+                uploadId, owner, request.getFileName(), request.getTotalSize());
+        return toResponse(session);
+    }
+
+    /**
+     * Write one chunk from the request body at the given offset.
+     * Bytes that arrived before a broken connection are kept, so the client resumes after them.
+     *
+     * @param uploadId      the session
+     * @param owner         the uploading user
+     * @param offset        position of the chunk's first byte in the file
+     * @param contentLength declared chunk length, or -1 if unknown
+     * @param body          the chunk bytes
+     * @return the session's progress after the chunk
+     */
+    public UploadSessionResponse writeChunk(String uploadId, String owner, long offset,
+                                            long contentLength, InputStream body) throws IOException {
+        UploadSession session = requireSession(uploadId, owner);
+        if (offset < 0 || offset >= session.totalSize) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the file");
+        }
+        long limit = Math.min(session.totalSize - offset, maxChunkSize);
+        if (contentLength > limit) {
+            throw new IllegalArgumentException("Chunk of " + contentLength + " bytes at offset " + offset
+                    + " exceeds the " + limit + " bytes allowed there");
+        }
+
+        session.beginWrite();
+        long written = 0;
+        boolean overflow = false;
+        try {
+            ReadableByteChannel source = Channels.newChannel(body);
+            while (written < limit) {
+                long transferred = session.channel.transferFrom(source, offset + written, limit - written);
+                if (transferred == 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written == limit && body.read() != -1) {
+                overflow = true;
+                throw new IllegalArgumentException("Chunk at offset " + offset + " exceeds the "
+                        + limit + " bytes allowed there");
+            }
+        } finally {
+            if (written > 0 && !overflow) {
+                session.markReceived(offset, offset + written);
+            }
+            session.endWrite();
+        }
+        log.debug("Upload {} received {} bytes at offset {}", uploadId, written, offset);
+        return toResponse(session);
+    }
+
+    /**
+     * Get the progress of a session, i.e. the offset to resume from.
+     */
+    public UploadSessionResponse getSession(String uploadId, String owner) {
+        return toResponse(requireSession(uploadId, owner));
+    }
+
+    /**
+     * Upload the assembled file to storage and close the session.
+     * If the storage upload fails the session stays open, so completion can be retried.
+     *
+     * @return Map containing url and publicId, as returned by {@link MediaService}
+     */
+    public Map<String, Object> complete(String uploadId, String owner) throws IOException {
+        UploadSession session = requireSession(uploadId, owner);
+        session.beginCompletion();
+        Map<String, Object> result;
+        try {
+            session.channel.force(false);
+            result = mediaService.uploadFile(session.path, session.fileName, session.contentType);
+        } catch (IOException | RuntimeException e) {
+            session.abortCompletion();
+            throw e;
+        }
+        discard(session);
+        log.info("Upload session {} completed: {}", uploadId, result.get("url"));
+        return result;
+    }
+
+    /**
+     * Abandon a session and remove its staged file.
+     */
+    public void cancel(String uploadId, String owner) {
+        UploadSession session = requireSession(uploadId, owner);
+        // A completing session is discarded by complete(); removing its file here would break the upload
+        session.beginCancel();
+        discard(session);
+        log.info("Upload session {} cancelled", uploadId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        new ArrayList<>(sessions.values()).forEach(this::discard);
+    }
+
+    private void checkSessionLimits(String owner) {
+        if (sessions.size() >= maxSessions) {
+            throw new SessionLimitException("Too many uploads in progress, try again later");
+        }
+        long owned = sessions.values().stream().filter(session -> session.owner.equals(owner)).count();
+        if (owned >= maxSessionsPerOwner) {
+            throw new SessionLimitException("At most " + maxSessionsPerOwner
+                    + " resumable uploads may be open at once; complete or cancel one first");
+        }
+    }
+
+    private UploadSession requireSession(String uploadId, String owner) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || owner == null || !session.owner.equals(owner)) {
+            throw new NoSuchElementException("Upload session not found: " + uploadId);
+        }
+        return session;
+    }
+
+    private void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtl.toMillis();
+        for (UploadSession session : sessions.values()) {
+            if (session.expireIfIdleSince(cutoff)) {
+                discard(session);
+                expiredCounter.increment();
+                log.info("Upload session {} expired after {} idle", session.uploadId, sessionTtl);
+            }
+        }
+    }
+
+    private void discard(UploadSession session) {
+        sessions.remove(session.uploadId, session);
+        try {
+            session.channel.close();
+            Files.deleteIfExists(session.path);
+        } catch (IOException e) {
+            log.warn("Failed to remove staged upload {}: {}", session.path, e.getMessage());
+        }
+    }
+
+    private void removeLeftoverFiles() throws IOException {
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(stagingDir, "*" + STAGED_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+                log.info("Removed staged upload left over from a previous run: {}", leftover.getFileName());
+            }
+        }
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        synchronized (session) {
+            return UploadSessionResponse.builder()
+                    .uploadId(session.uploadId)
+                    .fileName(session.fileName)
+                    .totalSize(session.totalSize)
+                    .offset(session.contiguousBytes())
+                    .receivedBytes(session.receivedBytes())
+                    .expiresAt(new Date(session.lastActivity + sessionTtl.toMillis()))
+                    .build();
+        }
+    }
+
+    /**
+     * Thrown when opening a session would exceed the per-owner or overall session limit.
+     */
+    public static class SessionLimitException extends IllegalStateException {
+        public SessionLimitException(String message) {
+            super(message);
+        }
+    }
+
+    static final class UploadSession {
+
+        private final String uploadId;
+        private final String owner;
+        private final String fileName;
+        private final String contentType;
+        private final long totalSize;
+        private final Path path;
+        private final FileChannel channel;
+        /** Received byte ranges, start to exclusive end, kept merged. */
+        private final TreeMap<Long, Long> received = new TreeMap<>();
+        private int writesInFlight;
+        private boolean completing;
+        private long lastActivity = System.currentTimeMillis();
+
+        UploadSession(String uploadId, String owner, String fileName, String contentType,
+                      long totalSize, Path path, FileChannel channel) {
+            this.uploadId = uploadId;
+            this.owner = owner;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.totalSize = totalSize;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        synchronized void beginWrite() {
+            if (completing || !channel.isOpen()) {
+                throw new IllegalStateException("Upload session " + uploadId + " is no longer accepting chunks");
+            }
+            writesInFlight++;
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void endWrite() {
+            writesInFlight--;
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void markReceived(long start, long end) {
+            Map.Entry<Long, Long> before = received.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            Map.Entry<Long, Long> next = received.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                received.remove(next.getKey());
+                next = received.ceilingEntry(start);
+            }
+            received.put(start, end);
+        }
+
+        synchronized long contiguousBytes() {
+            return received.getOrDefault(0L, 0L);
+        }
+
+        synchronized long receivedBytes() {
+            return received.entrySet().stream().mapToLong(range -> range.getValue() - range.getKey()).sum();
+        }
+
+        synchronized void beginCompletion() {
+            if (completing) {
+                throw new IllegalStateException("Upload session " + uploadId + " is already completing");
+            }
+            if (writesInFlight > 0) {
+                throw new IllegalStateException("Upload session " + uploadId + " still has chunks in flight");
+            }
+            if (contiguousBytes() < totalSize) {
+                throw new IllegalStateException("Upload incomplete: received " + contiguousBytes()
+                        + " of " + totalSize + " bytes contiguously");
+            }
+            completing = true;
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized void beginCancel() {
+            if (completing) {
+                throw new IllegalStateException("Upload session " + uploadId + " is completing and cannot be cancelled");
+            }
+            completing = true;
+        }
+
+        synchronized void abortCompletion() {
+            completing = false;
+            lastActivity = System.currentTimeMillis();
+        }
+
+        synchronized boolean expireIfIdleSince(long cutoff) {
+            if (completing || writesInFlight > 0 || lastActivity >= cutoff) {
+                return false;
+            }
+            completing = true;
+            return true;
+        }
+    }
+}
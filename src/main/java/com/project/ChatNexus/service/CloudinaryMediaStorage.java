@@ -0,0 +1,110 @@
+package com.project.ChatNexus.service;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
+import com.cloudinary.utils.ObjectUtils;
+import com.project.ChatNexus.model.MessageType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link MediaStorage} backed by Cloudinary. This is the default backend.
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "cloudinary", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CloudinaryMediaStorage implements MediaStorage {
+
+    private final Cloudinary cloudinary;
+
+    @Override
+    public StoredMedia store(Path source, MessageType messageType, String extension) throws IOException {
+        Map<String, Object> uploadParams = new HashMap<>();
+        uploadParams.put("folder", "chat_nexus/" + messageType.name().toLowerCase());
+        uploadParams.put("resource_type", resourceType(messageType));
+
+        // Add unique identifier to prevent duplicates
+        uploadParams.put("unique_filename", true);
+        uploadParams.put("overwrite", false);
+
+        // A File is streamed from disk by the HTTP client
+        @SuppressWarnings("unchecked")
+        Map<String, Object> uploadResult = cloudinary.uploader().upload(source.toFile(), uploadParams);
+        log.debug("Uploaded {} to Cloudinary as {}", source.getFileName(), uploadResult.get("public_id"));
+        return new StoredMedia((String) uploadResult.get("public_id"), (String) uploadResult.get("secure_url"));
+    }
+
+    @Override
+    public void delete(String publicId, MessageType messageType) throws IOException {
+        cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("resource_type", resourceType(messageType)));
+    }
+
+    @Override
+    public Map<String, String> deleteAll(List<String> publicIds, MessageType messageType) throws IOException {
+        // One Admin API call per batch; it accepts up to 100 public IDs of one resource type
+        Map<?, ?> response;
+        try {
+            response = cloudinary.api().deleteResources(publicIds, ObjectUtils.asMap("resource_type", resourceType(messageType)));
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Cloudinary bulk delete failed: " + e.getMessage(), e);
+        }
+
+        // The response reports a status per public ID, e.g. "deleted", "not_found" or an error
+        Map<?, ?> statuses = response.get("deleted") instanceof Map<?, ?> deleted ? deleted : Map.of();
+        Map<String, String> failures = new HashMap<>();
+        for (String publicId : publicIds) {
+            Object status = statuses.get(publicId);
+            if (!"deleted".equals(status) && !"not_found".equals(status)) {
+                failures.put(publicId, status == null ? "no status returned" : status.toString());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String batchKey(MessageType messageType) {
+        // deleteResources takes one resource type per call, and audio is stored as video
+        return resourceType(messageType);
+    }
+
+    @Override
+    public String url(String publicId, MessageType messageType) {
+        return cloudinary.url().secure(true).resourceType(resourceType(messageType)).generate(publicId);
+    }
+
+    @Override
+    public Optional<String> posterUrl(String publicId, int maxEdge) {
+        // Cloudinary extracts the first frame on first request to this derived URL
+        return Optional.of(cloudinary.url()
+                .secure(true)
+                .resourceType("video")
+                .transformation(new Transformation<>().startOffset("0").width(maxEdge).crop("limit"))
+                .format("jpg")
+                .generate(publicId));
+    }
+
+    /**
+     * Get Cloudinary resource type based on message type.
+     */
+    private String resourceType(MessageType messageType) {
+        if (messageType == null)
+            return "auto";
+        return switch (messageType) {
+            case IMAGE -> "image";
+            case VIDEO, AUDIO -> "video"; // Cloudinary treats audio as video resource type
+            default -> "auto";
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package com.project.ChatNexus.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Striped executor for inbound chat traffic. Each conversation key (chat ID or
+ * group ID) hashes to one lane with a single worker thread, so tasks of the same
+ * conversation run in submission order while different conversations run in
+ * parallel. A full lane blocks the submitter until space frees up.
+ */
+@Component
+@Slf4j
+public class ConversationExecutor {
+
+    private final Lane[] lanes;
+
+    public ConversationExecutor(MeterRegistry meterRegistry,
+                                @Value("${conversations.executor.lanes:16}") int laneCount,
+                                @Value("${conversations.executor.queue-depth:1000}") int queueDepth) {
+        if (laneCount < 1 || queueDepth < 1) {
+            throw new IllegalArgumentException("Lane count and queue depth must be positive");
+        }
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueDepth, meterRegistry);
+        }
+        log.info("Conversation executor started with {} lanes of depth {}", laneCount, queueDepth);
+    }
+
+    /**
+     * Run a task on the lane owning a conversation.
+     *
+     * @param conversationKey the chat ID or group ID
+     * @param task            the task to run
+     */
+    public void execute(String conversationKey, Runnable task) {
+        Lane lane = lanes[Math.floorMod(conversationKey.hashCode(), lanes.length)];
+        try {
+            lane.queue.put(new Task(task, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing task for " + conversationKey, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private record Task(Runnable runnable, long submittedAt) {
+    }
+
+    private static class Lane {
+
+        private final BlockingQueue<Task> queue;
+        private final Timer waitTimer;
+        private final Thread worker;
+        private volatile boolean running = true;
+
+        Lane(int index, int queueDepth, MeterRegistry meterRegistry) {
+            this.queue = new LinkedBlockingQueue<>(queueDepth);
+            String lane = String.valueOf(index);
+            Gauge.builder("chatnexus.conversation.lane.queue", queue, BlockingQueue::size)
+                    .description("Tasks waiting in a conversation lane")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("chatnexus.conversation.lane.wait")
+                    .description("Time a task waited in its conversation lane before running")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.worker = new Thread(this::run, "conversation-lane-" + index);
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                Task task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                waitTimer.record(System.nanoTime() - task.submittedAt(), TimeUnit.NANOSECONDS);
+                try {
+                    task.runnable().run();
+                } catch (Exception e) {
+                    log.error("Conversation task failed on {}: {}", Thread.currentThread().getName(), e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupDeletion;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Removes everything that belongs to a deleted group in the background.
+ * <p>
+ * The group document is deleted immediately; a {@link GroupDeletion} job then streams the
+ * group's messages through a cursor, reading only {@code _id}, {@code mediaPublicId} and
+ * {@code messageType}, and deletes them in bounded batches. Messages without media go in one
+ * {@code deleteMany}; messages with media are removed one by one, and a file is released only
+ * when this run's removal deleted its message. A crash can leak a file but never release one
+ * twice. A run claims its job with a lease, renewed per batch, so an instance resuming on
+ * startup never works on a job another live instance holds. A failed run is retried with
+ * exponential backoff, up to {@code max-attempts} times. Jobs are persisted with their progress
+ * and resumed on startup.
+ */
+@Component
+@Slf4j
+public class GroupCascadeDeletion {
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaService mediaService;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ScheduledExecutorService executor;
+    private final Set<String> unfinished = ConcurrentHashMap.newKeySet();
+    private final String workerId = UUID.randomUUID().toString();
+    private final Counter messagesDeletedCounter;
+
+    @Value("${groups.cascade.batch-size:500}")
+    private int batchSize;
+
+    @Value("${groups.cascade.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    @Value("${groups.cascade.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${groups.cascade.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${groups.cascade.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    @Value("${groups.cascade.lease:5m}")
+    private Duration lease;
+
+    public GroupCascadeDeletion(MongoTemplate mongoTemplate, MediaService mediaService,
+                                MessageSearchIndex messageSearchIndex, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaService = mediaService;
+        this.messageSearchIndex = messageSearchIndex;
+        // One cascade at a time keeps the load of mass deletions bounded
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "group-cascade-deletion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("chatnexus.groups.cascade.pending", unfinished, Set::size)
+                .description("Group deletions whose cascade has not finished")
+                .register(meterRegistry);
+        this.messagesDeletedCounter = Counter.builder("chatnexus.groups.cascade.messages.deleted")
+                .description("Group messages removed by cascade deletion")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Delete a group now and cascade to its data in the background.
+     *
+     * @param groupId     the group to delete
+     * @param requestedBy the user whose action deleted the group
+     * @return the cascade job
+     */
+    public GroupDeletion delete(String groupId, String requestedBy) {
+        GroupDeletion job = GroupDeletion.builder()
+                .id(groupId)
+                .status(GroupDeletion.Status.PENDING)
+                .requestedBy(requestedBy)
+                .createdAt(new Date())
+                .build();
+        // Record the job before the group disappears, so a crash in between is resumed
+        mongoTemplate.save(job);
+        mongoTemplate.remove(new Query(Criteria.where("id").is(groupId)), Group.class);
+        unfinished.add(groupId);
+        executor.execute(() -> run(groupId));
+        log.info("Group {} deleted by {}, cascade scheduled", groupId, requestedBy);
+        return job;
+    }
+
+    /**
+     * Get the progress of a group's cascade deletion.
+     *
+     * @param groupId the deleted group
+     * @return the job, empty if the group was never deleted or the job expired
+     */
+    public Optional<GroupDeletion> getProgress(String groupId) {
+        return Optional.ofNullable(mongoTemplate.findById(groupId, GroupDeletion.class));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                // Jobs leased by a live instance are left to it
+                Query unclaimed = new Query(claimable(new Date()));
+                // Jobs that gave up before the restart get a fresh set of attempts
+                mongoTemplate.updateMulti(unclaimed, new Update().set("attempts", 0), GroupDeletion.class);
+                List<GroupDeletion> jobs = mongoTemplate.find(unclaimed, GroupDeletion.class);
+                jobs.forEach(job -> unfinished.add(job.getId()));
+                jobs.forEach(job -> run(job.getId()));
+                if (!jobs.isEmpty()) {
+                    log.info("Resumed {} unfinished group deletions", jobs.size());
+                }
+            } catch (Exception e) {
+                log.error("Failed to resume group deletions: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(String groupId) {
+        String claim = workerId + ":" + System.currentTimeMillis();
+        Query job = new Query(Criteria.where("id").is(groupId).and("claimedBy").is(claim));
+        try {
+            if (!claim(groupId, claim)) {
+                // Completed, or held by another instance that will finish or retry it
+                unfinished.remove(groupId);
+                log.info("Cascade deletion of group {} is not claimable, skipping", groupId);
+                return;
+            }
+            // Idempotent, for jobs resumed after a crash before the group was removed
+            mongoTemplate.remove(new Query(Criteria.where("id").is(groupId)), Group.class);
+            messageSearchIndex.deleteGroup(groupId);
+            long total = mongoTemplate.count(new Query(Criteria.where("groupId").is(groupId)), GroupMessage.class);
+            mongoTemplate.updateFirst(job, new Update()
+                    .set("status", GroupDeletion.Status.RUNNING)
+                    .set("startedAt", new Date())
+                    .set("totalMessages", total)
+                    .unset("lastError"), GroupDeletion.class);
+
+            deleteMessages(groupId, job);
+
+            long readStatuses = mongoTemplate.remove(
+                    new Query(Criteria.where("groupId").is(groupId)), GroupReadStatus.class).getDeletedCount();
+            mongoTemplate.updateFirst(job, new Update()
+                    .inc("readStatusesDeleted", readStatuses)
+                    .set("status", GroupDeletion.Status.COMPLETED)
+                    .set("completedAt", new Date())
+                    .unset("claimedBy")
+                    .unset("leaseUntil"), GroupDeletion.class);
+            unfinished.remove(groupId);
+            log.info("Cascade deletion of group {} complete", groupId);
+        } catch (Exception e) {
+            // Also matches the job when the claim itself failed and nobody holds it
+            fail(groupId, new Query(Criteria.where("id").is(groupId).orOperator(
+                    Criteria.where("claimedBy").is(claim),
+                    Criteria.where("claimedBy").exists(false))), e);
+        }
+    }
+
+    /**
+     * Lease an unfinished job to this run, unless another run holds an unexpired lease on it.
+     */
+    private boolean claim(String groupId, String claim) {
+        Date now = new Date();
+        Query claimable = new Query(Criteria.where("id").is(groupId)).addCriteria(claimable(now));
+        return mongoTemplate.findAndModify(claimable, new Update()
+                        .set("claimedBy", claim)
+                        .set("leaseUntil", new Date(now.getTime() + lease.toMillis())),
+                FindAndModifyOptions.options().returnNew(true), GroupDeletion.class) != null;
+    }
+
+    private static Criteria claimable(Date now) {
+        return Criteria.where("status").ne(GroupDeletion.Status.COMPLETED).orOperator(
+                Criteria.where("leaseUntil").exists(false),
+                Criteria.where("leaseUntil").lte(now));
+    }
+
+    private void fail(String groupId, Query job, Exception cause) {
+        try {
+            // A run that lost its lease records nothing; the run now holding the job owns its retries
+            GroupDeletion failed = mongoTemplate.findAndModify(job, new Update()
+                            .set("status", GroupDeletion.Status.FAILED)
+                            .set("lastError", cause.getMessage())
+                            .inc("attempts", 1)
+                            .unset("claimedBy")
+                            .unset("leaseUntil"),
+                    FindAndModifyOptions.options().returnNew(true), GroupDeletion.class);
+            int attempts = failed == null ? maxAttempts : failed.getAttempts();
+            if (attempts >= maxAttempts) {
+                unfinished.remove(groupId);
+                log.error("Cascade deletion of group {} failed {} times, will resume on restart: {}",
+                        groupId, attempts, cause.getMessage());
+                return;
+            }
+            long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+            long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+            executor.schedule(() -> run(groupId), backoff + jitter, TimeUnit.MILLISECONDS);
+            log.warn("Cascade deletion of group {} failed, retrying in {} ms: {}", groupId, backoff + jitter, cause.getMessage());
+        } catch (Exception e) {
+            // Mongo is likely unavailable; the job is still unfinished and resumes on restart
+            unfinished.remove(groupId);
+            log.error("Cascade deletion of group {} failed, will resume on restart: {}", groupId, cause.getMessage());
+        }
+    }
+
+    private void deleteMessages(String groupId, Query job) {
+        Query messages = new Query(Criteria.where("groupId").is(groupId))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(batchSize);
+        messages.fields().include("id", "mediaPublicId", "messageType");
+
+        List<GroupMessage> batch = new ArrayList<>(batchSize);
+        try (Stream<GroupMessage> cursor = mongoTemplate.stream(messages, GroupMessage.class)) {
+            cursor.forEach(message -> {
+                batch.add(message);
+                if (batch.size() >= batchSize) {
+                    deleteBatch(batch, job);
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            deleteBatch(batch, job);
+        }
+    }
+
+    private void deleteBatch(List<GroupMessage> batch, Query job) {
+        UpdateResult renewed = mongoTemplate.updateFirst(job,
+                new Update().set("leaseUntil", new Date(System.currentTimeMillis() + lease.toMillis())),
+                GroupDeletion.class);
+        if (renewed.getMatchedCount() == 0) {
+            throw new IllegalStateException("Lease on the group deletion was lost");
+        }
+
+        List<String> withoutMedia = batch.stream()
+                .filter(message -> !hasMedia(message))
+                .map(GroupMessage::getId)
+                .toList();
+        long deleted = withoutMedia.isEmpty() ? 0 : mongoTemplate.remove(
+                new Query(Criteria.where("id").in(withoutMedia)), GroupMessage.class).getDeletedCount();
+
+        long released = 0;
+        for (GroupMessage message : batch) {
+            if (!hasMedia(message)) {
+                continue;
+            }
+            // A message an earlier run already removed has had its file released by that run
+            if (mongoTemplate.remove(new Query(Criteria.where("id").is(message.getId())), GroupMessage.class)
+                    .getDeletedCount() == 0) {
+                continue;
+            }
+            deleted++;
+            mediaService.releaseFile(message.getMediaPublicId(), message.getMessageType());
+            released++;
+        }
+
+        messagesDeletedCounter.increment(deleted);
+        mongoTemplate.updateFirst(job, new Update()
+                .inc("messagesDeleted", deleted)
+                .inc("mediaReleased", released), GroupDeletion.class);
+    }
+
+    private static boolean hasMedia(GroupMessage message) {
+        return message.getMediaPublicId() != null && !message.getMediaPublicId().isEmpty();
+    }
+}
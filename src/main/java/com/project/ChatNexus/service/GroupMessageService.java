@@ -2,15 +2,20 @@ package com.project.ChatNexus.service;
 
 import com.project.ChatNexus.model.GroupMessage;
 import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupReadStatus;
 import com.project.ChatNexus.model.MessageType;
 import com.project.ChatNexus.repository.GroupMessageRepository;
 import com.project.ChatNexus.repository.GroupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -20,24 +25,36 @@ public class GroupMessageService {
     private final GroupMessageRepository groupMessageRepository;
     private final GroupRepository groupRepository;
     private final UserService userService;
+    private final MongoTemplate mongoTemplate;
+    private final MessageWriteBehind messageWriteBehind;
+    private final MediaPreviewService mediaPreviewService;
+    private final MediaService mediaService;
+    private final MessageSearchIndex messageSearchIndex;
 
     /**
-     * Save a group message.
+     * Save a message sent by a user, who must be a member of the group.
+     * Assigns the next group sequence and updates the group's last message
+     * snapshot in one atomic operation.
      */
     public GroupMessage save(GroupMessage message) {
-        log.debug("Saving group message from {} to group {}", message.getSenderId(), message.getGroupId());
-
-        // Verify group exists
-        Group group = groupRepository.findById(message.getGroupId())
-                .orElseThrow(() -> new RuntimeException("Group not found"));
+        if (message.getMessageType() == MessageType.SYSTEM) {
+            throw new IllegalArgumentException("System messages cannot be sent by users");
+        }
+        return save(message, false);
+    }
 
-        // Allow SYSTEM messages without membership check
-        boolean isSystemMessage = "SYSTEM".equals(message.getSenderId()) ||
-                message.getMessageType() == MessageType.SYSTEM;
+    /**
+     * Save a server-generated message, such as a member joining, without a membership check.
+     * Only call this for messages the server composed itself, never for client input.
+     */
+    public GroupMessage saveSystemMessage(GroupMessage message) {
+        message.setSenderId(GroupMessage.SYSTEM_SENDER_ID);
+        message.setMessageType(MessageType.SYSTEM);
+        return save(message, true);
+    }
 
-        if (!isSystemMessage && !group.isMember(message.getSenderId())) {
-            throw new RuntimeException("User is not a member of this group");
-        }
+    private GroupMessage save(GroupMessage message, boolean isSystemMessage) {
+        log.debug("Saving group message from {} to group {}", message.getSenderId(), message.getGroupId());
 
         // Set sender name if not already set (skip for system messages)
         if (!isSystemMessage && (message.getSenderName() == null || message.getSenderName().isEmpty())) {
@@ -49,28 +66,87 @@ public class GroupMessageService {
             message.setTimestamp(new Date());
         }
 
-        GroupMessage savedMessage = groupMessageRepository.save(message);
-        log.info("Group message saved with ID: {}", savedMessage.getId());
+        // Preview fields come from the server only; messages sent before it is ready are filled in later
+        MediaPreviewService.Preview preview = mediaPreviewService.find(message.getMediaPublicId()).orElse(null);
+        message.setThumbnailUrl(preview != null ? preview.thumbnailUrl() : null);
+        message.setMediaWidth(preview != null ? preview.width() : null);
+        message.setMediaHeight(preview != null ? preview.height() : null);
+        message.setBlurHash(preview != null ? preview.blurHash() : null);
+
+        Criteria groupCriteria = Criteria.where("id").is(message.getGroupId());
+        if (!isSystemMessage) {
+            groupCriteria.and("memberIds").is(message.getSenderId());
+        }
+        Group group = mongoTemplate.findAndModify(new Query(groupCriteria),
+                new Update()
+                        .inc("messageSeq", 1)
+                        .set("lastMessage", message.getContent())
+                        .set("lastMessageSender", message.getSenderName())
+                        .set("lastMessageTime", message.getTimestamp())
+                        .set("lastMessageType", message.getMessageType()),
+                FindAndModifyOptions.options().returnNew(true),
+                Group.class);
+
+        if (group == null) {
+            if (!groupRepository.existsById(message.getGroupId())) {
+                throw new RuntimeException("Group not found");
+            }
+            throw new RuntimeException("User is not a member of this group");
+        }
+
+        message.setSeq(group.getMessageSeq());
+
+        // The sender's own messages never count as unread for them; earlier messages from others still do
+        Runnable afterPersist = () -> {
+            if (!isSystemMessage) {
+                mongoTemplate.upsert(
+                        new Query(Criteria.where("userId").is(message.getSenderId()).and("groupId").is(message.getGroupId())),
+                        new Update().inc("ownMessagesSinceRead", 1),
+                        GroupReadStatus.class);
+            }
+            mediaService.referenceFile(message.getMediaPublicId());
+            messageSearchIndex.index(message);
+        };
+
+        if (messageWriteBehind.isEnabled()) {
+            message.setId(messageWriteBehind.nextId());
+            messageWriteBehind.submit(message, afterPersist, () -> releaseSeq(message));
+            log.debug("Group message {} queued for persistence (seq {})", message.getId(), message.getSeq());
+            return message;
+        }
+
+        GroupMessage savedMessage;
+        try {
+            savedMessage = groupMessageRepository.save(message);
+        } catch (RuntimeException e) {
+            releaseSeq(message);
+            throw e;
+        }
+        afterPersist.run();
+
+        log.info("Group message saved with ID: {} (seq {})", savedMessage.getId(), savedMessage.getSeq());
         return savedMessage;
     }
 
     /**
-     * Find all messages in a group.
+     * Give back the sequence number of a message that could not be saved and restore the
+     * group's last message snapshot. If another message took the next number meanwhile the
+     * gap stays; it only inflates unread counts until each member next reads the group.
      */
-    public List<GroupMessage> findGroupMessages(String groupId, String requesterId) {
-        log.debug("Finding messages for group {}", groupId);
-
-        // Verify user is a member of the group
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
-
-        if (!group.isMember(requesterId)) {
-            throw new RuntimeException("User is not a member of this group");
+    private void releaseSeq(GroupMessage message) {
+        Query query = new Query(Criteria.where("id").is(message.getGroupId()).and("messageSeq").is(message.getSeq()));
+        Update update = new Update().inc("messageSeq", -1);
+        groupMessageRepository.findTopByGroupIdOrderByTimestampDesc(message.getGroupId()).ifPresentOrElse(
+                lastMsg -> update
+                        .set("lastMessage", lastMsg.getContent())
+                        .set("lastMessageSender", lastMsg.getSenderName())
+                        .set("lastMessageTime", lastMsg.getTimestamp())
+                        .set("lastMessageType", lastMsg.getMessageType()),
+                () -> update.unset("lastMessage").unset("lastMessageSender")
+                        .unset("lastMessageTime").unset("lastMessageType"));
+        if (mongoTemplate.updateFirst(query, update, Group.class).getModifiedCount() == 0) {
+            log.warn("Group {} keeps a gap at seq {} after a failed save", message.getGroupId(), message.getSeq());
         }
-
-        List<GroupMessage> messages = groupMessageRepository.findByGroupIdOrderByTimestampAsc(groupId);
-        log.debug("Found {} messages in group {}", messages.size(), groupId);
-        return messages;
     }
 
     /**
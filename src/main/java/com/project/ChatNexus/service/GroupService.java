@@ -3,19 +3,25 @@ package com.project.ChatNexus.service;
 import com.project.ChatNexus.dto.request.CreateGroupRequest;
 import com.project.ChatNexus.dto.response.GroupResponse;
 import com.project.ChatNexus.model.Group;
-import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.GroupDeletion;
 import com.project.ChatNexus.model.GroupReadStatus;
 import com.project.ChatNexus.model.MessageType;
+import com.project.ChatNexus.model.User;
 import com.project.ChatNexus.repository.GroupMessageRepository;
 import com.project.ChatNexus.repository.GroupReadStatusRepository;
 import com.project.ChatNexus.repository.GroupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,7 +32,8 @@ public class GroupService {
     private final GroupMessageRepository groupMessageRepository;
     private final GroupReadStatusRepository groupReadStatusRepository;
     private final UserService userService;
-    private final CloudinaryService cloudinaryService;
+    private final GroupCascadeDeletion groupCascadeDeletion;
+    private final MongoTemplate mongoTemplate;
 
     /**
      * Create a new group.
@@ -67,149 +74,105 @@ public class GroupService {
     }
 
     /**
-     * Get all groups for a user.
+     * Check group membership without loading the group.
      */
-    public List<GroupResponse> getGroupsForUser(String userId) {
-        log.debug("Fetching groups for user: {}", userId);
-        List<Group> groups = groupRepository.findByMemberIdsContaining(userId);
-
-        return groups.stream()
-                .map(group -> mapToGroupResponseWithUnread(group, userId))
-                .sorted((g1, g2) -> {
-                    if (g1.getLastMessageTime() == null && g2.getLastMessageTime() == null)
-                        return 0;
-                    if (g1.getLastMessageTime() == null)
-                        return 1;
-                    if (g2.getLastMessageTime() == null)
-                        return -1;
-                    return g2.getLastMessageTime().compareTo(g1.getLastMessageTime());
-                })
-                .toList();
+    public boolean isMember(String groupId, String userId) {
+        return mongoTemplate.exists(
+                new Query(Criteria.where("id").is(groupId).and("memberIds").is(userId)), Group.class);
     }
 
     /**
      * Add members to a group.
      */
     public Group addMembers(String groupId, String requesterId, Set<String> memberIds) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
+        Group group = updateMembers(
+                new Query(Criteria.where("id").is(groupId).and("memberIds").is(requesterId)),
+                new Update().addToSet("memberIds").each(memberIds.toArray()));
 
-        if (!group.isMember(requesterId)) {
+        if (group == null) {
+            requireGroup(groupId);
             throw new RuntimeException("You are not a member of this group");
         }
 
-        memberIds.forEach(group::addMember);
-        group.setUpdatedAt(LocalDateTime.now());
-
         log.info("Added {} members to group {}", memberIds.size(), groupId);
-        return groupRepository.save(group);
+        return group;
     }
 
     /**
      * Remove a member from a group.
      */
     public Group removeMember(String groupId, String requesterId, String memberId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
-
+        Criteria criteria = Criteria.where("id").is(groupId);
         // Only admins can remove others, or users can remove themselves
-        if (!group.isAdmin(requesterId) && !requesterId.equals(memberId)) {
-            throw new RuntimeException("You don't have permission to remove this member");
+        if (!requesterId.equals(memberId)) {
+            criteria.and("adminIds").is(requesterId);
         }
 
-        group.removeMember(memberId);
-        group.setUpdatedAt(LocalDateTime.now());
+        Group group = updateMembers(new Query(criteria), new Update().pull("memberIds", memberId));
+        if (group == null) {
+            requireGroup(groupId);
+            throw new RuntimeException("You don't have permission to remove this member");
+        }
 
         log.info("Removed member {} from group {}", memberId, groupId);
-        return groupRepository.save(group);
+        return group;
     }
 
     /**
      * Leave a group.
      */
     public void leaveGroup(String groupId, String userId) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
-
-        group.removeMember(userId);
-        group.setUpdatedAt(LocalDateTime.now());
+        Group group = updateMembers(
+                new Query(Criteria.where("id").is(groupId)),
+                new Update().pull("memberIds", userId));
+        if (group == null) {
+            throw new RuntimeException("Group not found");
+        }
 
         // If group is empty, delete the group and all associated data
-        if (group.getMemberIds().isEmpty()) {
-            deleteGroupCompletely(groupId);
+        if (group.getMemberIds() == null || group.getMemberIds().isEmpty()) {
+            groupCascadeDeletion.delete(groupId, userId);
             log.info("Group {} deleted as last member left", groupId);
         } else {
-            groupRepository.save(group);
             log.info("User {} left group {}", userId, groupId);
         }
     }
 
     /**
-     * Completely delete a group including all messages, media, and read status.
+     * Apply a membership change as a targeted update, so concurrent message
+     * saves never lose their sequence or last message snapshot.
+     *
+     * @return the updated group, or null if the query did not match
      */
-    private void deleteGroupCompletely(String groupId) {
-        // Get all messages to delete media from Cloudinary
-        List<GroupMessage> messages = groupMessageRepository.findByGroupIdOrderByTimestampAsc(groupId);
-
-        // Delete media from Cloudinary for each message with media
-        for (GroupMessage message : messages) {
-            if (message.getMediaPublicId() != null && !message.getMediaPublicId().isEmpty()) {
-                try {
-                    String resourceType = getCloudinaryResourceType(message.getMessageType());
-                    cloudinaryService.deleteFile(message.getMediaPublicId(), resourceType);
-                    log.debug("Deleted media {} from Cloudinary", message.getMediaPublicId());
-                } catch (IOException e) {
-                    log.error("Failed to delete media {} from Cloudinary: {}",
-                            message.getMediaPublicId(), e.getMessage());
-                }
-            }
-        }
-
-        // Delete all messages
-        groupMessageRepository.deleteAll(messages);
-        log.debug("Deleted {} messages from group {}", messages.size(), groupId);
-
-        // Delete read status records
-        groupReadStatusRepository.deleteByGroupId(groupId);
-        log.debug("Deleted read status records for group {}", groupId);
-
-        // Delete the group itself
-        groupRepository.deleteById(groupId);
+    private Group updateMembers(Query query, Update update) {
+        update.set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Group.class);
     }
 
-    /**
-     * Get Cloudinary resource type based on message type.
-     */
-    private String getCloudinaryResourceType(MessageType messageType) {
-        if (messageType == null)
-            return "auto";
-        return switch (messageType) {
-            case IMAGE -> "image";
-            case VIDEO, AUDIO -> "video";
-            default -> "auto";
-        };
+    private Group requireGroup(String groupId) {
+        return groupRepository.findById(groupId)
+                .orElseThrow(() -> new RuntimeException("Group not found"));
     }
 
     /**
      * Update group details.
      */
     public Group updateGroup(String groupId, String requesterId, String name, String description) {
-        Group group = groupRepository.findById(groupId)
-                .orElseThrow(() -> new RuntimeException("Group not found"));
-
-        if (!group.isAdmin(requesterId)) {
-            throw new RuntimeException("Only admins can update group details");
-        }
-
+        Update update = new Update();
         if (name != null && !name.trim().isEmpty()) {
-            group.setName(name.trim());
+            update.set("name", name.trim());
         }
         if (description != null) {
-            group.setDescription(description.trim());
+            update.set("description", description.trim());
         }
-        group.setUpdatedAt(LocalDateTime.now());
 
-        return groupRepository.save(group);
+        Group group = updateMembers(
+                new Query(Criteria.where("id").is(groupId).and("adminIds").is(requesterId)), update);
+        if (group == null) {
+            requireGroup(groupId);
+            throw new RuntimeException("Only admins can update group details");
+        }
+        return group;
     }
 
     /**
@@ -223,10 +186,17 @@ public class GroupService {
             throw new RuntimeException("Only the group creator can delete the group");
         }
 
-        groupRepository.delete(group);
+        groupCascadeDeletion.delete(groupId, requesterId);
         log.info("Group {} deleted by creator {}", groupId, requesterId);
     }
 
+    /**
+     * Get the progress of a deleted group's background cleanup.
+     */
+    public Optional<GroupDeletion> getDeletionProgress(String groupId) {
+        return groupCascadeDeletion.getProgress(groupId);
+    }
+
     /**
      * Get group members with their details.
      */
@@ -234,67 +204,63 @@ public class GroupService {
         Group group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new RuntimeException("Group not found"));
 
+        Map<String, User> users = userService.findByUsernames(group.getMemberIds()).stream()
+                .collect(Collectors.toMap(User::getUsername, user -> user));
+
         List<Map<String, Object>> members = new ArrayList<>();
         for (String memberId : group.getMemberIds()) {
-            userService.findByUsername(memberId).ifPresent(user -> {
-                Map<String, Object> memberInfo = new HashMap<>();
-                memberInfo.put("username", user.getUsername());
-                memberInfo.put("fullName", user.getFullName());
-                memberInfo.put("status", user.getStatus());
-                memberInfo.put("isAdmin", group.isAdmin(user.getUsername()));
-                memberInfo.put("isCreator", group.getCreatorId().equals(user.getUsername()));
-                members.add(memberInfo);
-            });
+            User user = users.get(memberId);
+            if (user == null) {
+                continue;
+            }
+            Map<String, Object> memberInfo = new HashMap<>();
+            memberInfo.put("username", user.getUsername());
+            memberInfo.put("fullName", user.getFullName());
+            memberInfo.put("status", user.getStatus());
+            memberInfo.put("isAdmin", group.isAdmin(user.getUsername()));
+            memberInfo.put("isCreator", group.getCreatorId().equals(user.getUsername()));
+            members.add(memberInfo);
         }
         return members;
     }
 
     /**
-     * Mark group as read for a user (update last read timestamp).
+     * Mark group as read for a user (advance last read sequence to the latest message).
      */
     public void markGroupAsRead(String groupId, String userId) {
-        GroupReadStatus readStatus = groupReadStatusRepository
-                .findByUserIdAndGroupId(userId, groupId)
-                .orElse(GroupReadStatus.builder()
-                        .userId(userId)
-                        .groupId(groupId)
-                        .build());
-
-        readStatus.setLastReadTimestamp(new Date());
-        groupReadStatusRepository.save(readStatus);
-        log.debug("Marked group {} as read for user {}", groupId, userId);
+        Query seqQuery = new Query(Criteria.where("id").is(groupId));
+        seqQuery.fields().include("messageSeq");
+        Group group = mongoTemplate.findOne(seqQuery, Group.class);
+        long messageSeq = group != null ? group.getMessageSeq() : 0L;
+
+        mongoTemplate.upsert(
+                new Query(Criteria.where("userId").is(userId).and("groupId").is(groupId)),
+                new Update().max("lastReadSeq", messageSeq).set("ownMessagesSinceRead", 0)
+                        .set("lastReadTimestamp", new Date()),
+                GroupReadStatus.class);
+        log.debug("Marked group {} as read for user {} up to seq {}", groupId, userId, messageSeq);
     }
 
     /**
      * Get unread message count for a user in a group.
      */
     public int getUnreadCount(String groupId, String userId) {
-        Optional<GroupReadStatus> readStatus = groupReadStatusRepository
-                .findByUserIdAndGroupId(userId, groupId);
-
-        if (readStatus.isEmpty()) {
-            // User has never read this group - count all messages except their own
-            return (int) groupMessageRepository.countByGroupId(groupId);
-        }
-
-        Date lastReadTime = readStatus.get().getLastReadTimestamp();
-        // Count messages after last read, excluding user's own messages
-        return (int) groupMessageRepository.countByGroupIdAndTimestampAfterAndSenderIdNot(
-                groupId, lastReadTime, userId);
+        long messageSeq = groupRepository.findById(groupId).map(Group::getMessageSeq).orElse(0L);
+        return unreadCount(messageSeq, groupReadStatusRepository.findByUserIdAndGroupId(userId, groupId).orElse(null));
     }
 
-    /**
-     * Map Group entity to GroupResponse DTO.
-     */
-    private GroupResponse mapToGroupResponse(Group group) {
-        return mapToGroupResponseWithUnread(group, null);
+    int unreadCount(long messageSeq, GroupReadStatus readStatus) {
+        if (readStatus == null) {
+            return (int) Math.max(0L, messageSeq);
+        }
+        return (int) Math.max(0L, messageSeq - readStatus.getLastReadSeq() - readStatus.getOwnMessagesSinceRead());
     }
 
     /**
-     * Map Group entity to GroupResponse DTO with unread count for specific user.
+     * Map Group entity to GroupResponse DTO with unread count derived from the read sequence.
      */
-    private GroupResponse mapToGroupResponseWithUnread(Group group, String userId) {
-        GroupResponse.GroupResponseBuilder builder = GroupResponse.builder()
+    GroupResponse mapToGroupResponseWithUnread(Group group, GroupReadStatus readStatus) {
+        return GroupResponse.builder()
                 .id(group.getId())
                 .name(group.getName())
                 .description(group.getDescription())
@@ -304,22 +270,12 @@ public class GroupService {
                 .avatarUrl(group.getAvatarUrl())
                 .createdAt(group.getCreatedAt())
                 .updatedAt(group.getUpdatedAt())
-                .memberCount(group.getMemberIds() != null ? group.getMemberIds().size() : 0);
-
-        // Get last message info
-        groupMessageRepository.findTopByGroupIdOrderByTimestampDesc(group.getId())
-                .ifPresent(lastMsg -> {
-                    builder.lastMessage(lastMsg.getContent())
-                            .lastMessageSender(lastMsg.getSenderName())
-                            .lastMessageTime(lastMsg.getTimestamp())
-                            .lastMessageType(lastMsg.getMessageType());
-                });
-
-        // Calculate unread count if userId is provided
-        if (userId != null) {
-            builder.unreadCount(getUnreadCount(group.getId(), userId));
-        }
-
-        return builder.build();
+                .memberCount(group.getMemberIds() != null ? group.getMemberIds().size() : 0)
+                .lastMessage(group.getLastMessage())
+                .lastMessageSender(group.getLastMessageSender())
+                .lastMessageTime(group.getLastMessageTime())
+                .lastMessageType(group.getLastMessageType())
+                .unreadCount(unreadCount(group.getMessageSeq(), readStatus))
+                .build();
     }
 }
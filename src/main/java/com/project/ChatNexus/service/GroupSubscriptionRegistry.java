@@ -0,0 +1,149 @@
+package com.project.ChatNexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks authorized subscriptions to group topics so they can be revoked
+ * from the broker when a member leaves or a group is deleted.
+ */
+@Component
+@Slf4j
+public class GroupSubscriptionRegistry {
+
+    public static final String GROUP_TOPIC_PREFIX = "/topic/group.";
+    private static final String UPDATES_SUFFIX = ".updates";
+
+    private final MessageChannel brokerChannel;
+    private final Map<String, Set<Subscription>> subscriptionsByGroup = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> subscriptionsBySession = new ConcurrentHashMap<>();
+
+    public GroupSubscriptionRegistry(@Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.brokerChannel = brokerChannel;
+    }
+
+    /**
+     * Topic carrying the messages of a group.
+     */
+    public static String messagesTopic(String groupId) {
+        return GROUP_TOPIC_PREFIX + groupId;
+    }
+
+    /**
+     * Topic carrying membership and detail updates of a group.
+     */
+    public static String updatesTopic(String groupId) {
+        return GROUP_TOPIC_PREFIX + groupId + UPDATES_SUFFIX;
+    }
+
+    /**
+     * Extract the group ID from a group topic destination.
+     *
+     * @param destination the STOMP destination
+     * @return the group ID, or null if this is not exactly a group topic
+     */
+    public static String groupIdOf(String destination) {
+        if (destination == null || !destination.startsWith(GROUP_TOPIC_PREFIX)) {
+            return null;
+        }
+        String groupId = destination.substring(GROUP_TOPIC_PREFIX.length());
+        if (groupId.endsWith(UPDATES_SUFFIX)) {
+            groupId = groupId.substring(0, groupId.length() - UPDATES_SUFFIX.length());
+        }
+        boolean exact = !groupId.isEmpty() && groupId.chars().noneMatch(c -> c == '.' || c == '*' || c == '?' || c == '{');
+        return exact ? groupId : null;
+    }
+
+    /**
+     * Record an authorized subscription.
+     */
+    public void add(String groupId, String sessionId, String subscriptionId, String username) {
+        Subscription subscription = new Subscription(groupId, sessionId, subscriptionId, username);
+        subscriptionsByGroup.computeIfAbsent(groupId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriptionsBySession.computeIfAbsent(sessionId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        log.debug("User {} subscribed to group {} (session {})", username, groupId, sessionId);
+    }
+
+    /**
+     * Forget a subscription the client unsubscribed from.
+     */
+    public void remove(String sessionId, String subscriptionId) {
+        Set<Subscription> sessionSubscriptions = subscriptionsBySession.get(sessionId);
+        if (sessionSubscriptions == null) {
+            return;
+        }
+        sessionSubscriptions.removeIf(subscription -> {
+            if (!subscription.subscriptionId().equals(subscriptionId)) {
+                return false;
+            }
+            removeFromGroup(subscription);
+            return true;
+        });
+    }
+
+    /**
+     * Forget all subscriptions of a closed session.
+     */
+    public void removeSession(String sessionId) {
+        Set<Subscription> sessionSubscriptions = subscriptionsBySession.remove(sessionId);
+        if (sessionSubscriptions != null) {
+            sessionSubscriptions.forEach(this::removeFromGroup);
+        }
+    }
+
+    /**
+     * Unsubscribe all sessions of a user from a group's topics.
+     */
+    public void revoke(String groupId, String username) {
+        Set<Subscription> groupSubscriptions = subscriptionsByGroup.get(groupId);
+        if (groupSubscriptions == null) {
+            return;
+        }
+        List<Subscription> revoked = groupSubscriptions.stream()
+                .filter(subscription -> subscription.username().equals(username))
+                .toList();
+        revoked.forEach(this::unsubscribe);
+        log.debug("Revoked {} subscriptions of {} to group {}", revoked.size(), username, groupId);
+    }
+
+    /**
+     * Unsubscribe every session from a group's topics.
+     */
+    public void revokeAll(String groupId) {
+        Set<Subscription> groupSubscriptions = subscriptionsByGroup.remove(groupId);
+        if (groupSubscriptions == null) {
+            return;
+        }
+        groupSubscriptions.forEach(this::unsubscribe);
+        log.debug("Revoked {} subscriptions to group {}", groupSubscriptions.size(), groupId);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(subscription.sessionId());
+        accessor.setSubscriptionId(subscription.subscriptionId());
+        brokerChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        remove(subscription.sessionId(), subscription.subscriptionId());
+    }
+
+    private void removeFromGroup(Subscription subscription) {
+        subscriptionsByGroup.computeIfPresent(subscription.groupId(), (key, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    private record Subscription(String groupId, String sessionId, String subscriptionId, String username) {
+    }
+}
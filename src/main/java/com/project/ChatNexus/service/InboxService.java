@@ -0,0 +1,131 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.ChatRoom;
+import com.project.ChatNexus.model.InboxEntry;
+import com.project.ChatNexus.model.MessageStatus;
+import com.project.ChatNexus.model.MessageType;
+import com.project.ChatNexus.repository.ChatMessageRepository;
+import com.project.ChatNexus.repository.ChatRoomRepository;
+import com.project.ChatNexus.repository.InboxEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Service maintaining the materialized per-user inbox that backs the contacts list.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InboxService {
+
+    private final InboxEntryRepository inboxEntryRepository;
+    private final ChatRoomRepository chatRoomRepository;
+    private final ChatMessageRepository chatMessageRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${inbox.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    /**
+     * Record a saved message in both participants' inboxes.
+     * The recipient's unread counter is incremented atomically.
+     *
+     * @param message the saved message
+     */
+    public void recordMessage(ChatMessage message) {
+        upsertLastMessage(message.getSenderId(), message.getRecipientId(), message, false);
+        upsertLastMessage(message.getRecipientId(), message.getSenderId(), message, true);
+        log.debug("Inbox updated for {} and {}", message.getSenderId(), message.getRecipientId());
+    }
+
+    /**
+     * Reset the unread counter of a conversation for a user.
+     *
+     * @param userId    the user who read the messages
+     * @param partnerId the other participant
+     */
+    public void markAsRead(String userId, String partnerId) {
+        mongoTemplate.updateFirst(entryQuery(userId, partnerId),
+                new Update().set("unreadCount", 0L),
+                InboxEntry.class);
+        log.debug("Inbox of {} reset unread count for {}", userId, partnerId);
+    }
+
+    /**
+     * Build inbox entries for conversations that predate the inbox collection.
+     * Existing entries are left untouched, so this is safe to run repeatedly.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread worker = new Thread(this::backfill, "inbox-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void backfill() {
+        try {
+            int created = 0;
+            for (ChatRoom room : chatRoomRepository.findAll()) {
+                if (!mongoTemplate.exists(entryQuery(room.getSenderId(), room.getRecipientId()), InboxEntry.class)) {
+                    backfillEntry(room);
+                    created++;
+                }
+            }
+            log.info("Inbox backfill complete, {} entries created", created);
+        } catch (Exception e) {
+            log.error("Inbox backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void backfillEntry(ChatRoom room) {
+        Optional<ChatMessage> lastMessage = chatMessageRepository.findTopByChatIdOrderByTimeStampDesc(room.getChatId());
+        long unreadCount = chatMessageRepository.countByRecipientIdAndSenderIdAndStatusNot(
+                room.getSenderId(), room.getRecipientId(), MessageStatus.READ);
+
+        Update update = new Update()
+                .setOnInsert("unreadCount", unreadCount);
+        lastMessage.ifPresent(msg -> update
+                .setOnInsert("lastMessage", msg.getContent())
+                .setOnInsert("lastMessageType", messageTypeOf(msg))
+                .setOnInsert("lastMessageTime", msg.getTimeStamp())
+                .setOnInsert("lastMessageSenderId", msg.getSenderId()));
+
+        mongoTemplate.upsert(entryQuery(room.getSenderId(), room.getRecipientId()), update, InboxEntry.class);
+    }
+
+    private void upsertLastMessage(String userId, String partnerId, ChatMessage message, boolean incrementUnread) {
+        Update update = new Update()
+                .set("lastMessage", message.getContent())
+                .set("lastMessageType", messageTypeOf(message))
+                .set("lastMessageTime", message.getTimeStamp())
+                .set("lastMessageSenderId", message.getSenderId());
+        if (incrementUnread) {
+            update.inc("unreadCount", 1L);
+        } else {
+            update.setOnInsert("unreadCount", 0L);
+        }
+        mongoTemplate.upsert(entryQuery(userId, partnerId), update, InboxEntry.class);
+    }
+
+    private MessageType messageTypeOf(ChatMessage message) {
+        return message.getMessageType() != null ? message.getMessageType() : MessageType.TEXT;
+    }
+
+    private Query entryQuery(String userId, String partnerId) {
+        return new Query(Criteria.where("userId").is(userId).and("partnerId").is(partnerId));
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MessageType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link MediaStorage} on the local filesystem, for self-hosting and offline benchmarks.
+ * Files are immutable once stored and are served by {@code LocalMediaController}.
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "local")
+@Slf4j
+public class LocalMediaStorage implements MediaStorage {
+
+    private final Path rootDir;
+    private final String baseUrl;
+
+    public LocalMediaStorage(@Value("${media.local.root-dir:./media}") Path rootDir,
+                             @Value("${media.local.base-url:/media}") String baseUrl) throws IOException {
+        this.rootDir = Files.createDirectories(rootDir).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        log.info("Storing media under {}", this.rootDir);
+    }
+
+    @Override
+    public StoredMedia store(Path source, MessageType messageType, String extension) throws IOException {
+        String publicId = "chat_nexus/" + messageType.name().toLowerCase() + "/" + UUID.randomUUID() + "." + extension;
+        Path target = rootDir.resolve(publicId);
+        Files.createDirectories(target.getParent());
+
+        // Copy next to the target first, so a half-written file is never visible under its public ID
+        Path partial = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.copy(source, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return new StoredMedia(publicId, url(publicId, messageType));
+    }
+
+    @Override
+    public void delete(String publicId, MessageType messageType) throws IOException {
+        Optional<Path> path = resolve(publicId);
+        if (path.isPresent()) {
+            Files.deleteIfExists(path.get());
+        }
+    }
+
+    @Override
+    public String batchKey(MessageType messageType) {
+        // Files are found by public ID alone, whatever their type
+        return "local";
+    }
+
+    @Override
+    public String url(String publicId, MessageType messageType) {
+        return baseUrl + "/" + publicId;
+    }
+
+    /**
+     * Resolve a public ID to its file, refusing IDs that escape the storage root.
+     *
+     * @param publicId the public ID
+     * @return the file path, empty if the ID is outside the root
+     */
+    public Optional<Path> resolve(String publicId) {
+        Path path = rootDir.resolve(publicId).normalize();
+        return path.startsWith(rootDir) && !path.equals(rootDir) ? Optional.of(path) : Optional.empty();
+    }
+}
@@ -0,0 +1,329 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MediaDeletion;
+import com.project.ChatNexus.model.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable queue of stored media files to delete, kept in the {@code media_deletions} collection.
+ * <p>
+ * Requests only insert outbox entries. A background worker claims due entries, groups them
+ * by {@link MediaStorage#batchKey} and deletes each group with one bulk call, spacing
+ * calls evenly so no more than {@code rate-per-hour} are made per hour, since Cloudinary
+ * limits Admin API calls per hour. Files storage did not delete are retried with exponential
+ * backoff and jitter; after {@code max-attempts} an entry is parked for inspection.
+ * Files that are still registered in {@code media_objects} are never deleted, so callers
+ * may queue a deletion before removing the object. Claims carry a lease, so several
+ * instances can share the queue and a crashed worker's entries are picked up again.
+ * Only image, video and audio files can be queued; entries of any other type are parked.
+ */
+@Component
+@Slf4j
+public class MediaDeletionQueue {
+
+    private static final Set<MessageType> STORED_TYPES = EnumSet.of(
+            MessageType.IMAGE, MessageType.VIDEO, MessageType.AUDIO);
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaStorage mediaStorage;
+    private final MediaObjectRegistry mediaObjectRegistry;
+    private final String workerId = UUID.randomUUID().toString();
+    private final Object wakeUp = new Object();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+    private volatile boolean running = true;
+
+    @Value("${media.deletion.worker-enabled:true}")
+    private boolean workerEnabled;
+
+    @Value("${media.deletion.poll-interval:5s}")
+    private Duration pollInterval;
+
+    @Value("${media.deletion.lease:5m}")
+    private Duration lease;
+
+    @Value("${media.deletion.rate-per-hour:400}")
+    private double ratePerHour;
+
+    @Value("${media.deletion.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${media.deletion.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${media.deletion.max-backoff:6h}")
+    private Duration maxBackoff;
+
+    public MediaDeletionQueue(MongoTemplate mongoTemplate, MediaStorage mediaStorage,
+                              MediaObjectRegistry mediaObjectRegistry, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaStorage = mediaStorage;
+        this.mediaObjectRegistry = mediaObjectRegistry;
+        Gauge.builder("chatnexus.media.deletions.pending", pending, AtomicLong::get)
+                .description("Media files waiting to be deleted from storage")
+                .register(meterRegistry);
+        Gauge.builder("chatnexus.media.deletions.parked", parked, AtomicLong::get)
+                .description("Media deletions that gave up after repeated failures")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("chatnexus.media.deletions.deleted")
+                .description("Media files deleted from storage by the deletion worker")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("chatnexus.media.deletions.failed")
+                .description("Failed media deletion attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue stored files for deletion.
+     *
+     * @param publicIds   the public IDs to delete
+     * @param messageType the type of media the files hold
+     * @return the IDs of the queue entries
+     * @throws IllegalArgumentException if files of this type are never stored
+     */
+    public List<String> enqueue(Collection<String> publicIds, MessageType messageType) {
+        if (!isStoredType(messageType)) {
+            throw new IllegalArgumentException("Not a stored media type: " + messageType);
+        }
+        if (publicIds.isEmpty()) {
+            return List.of();
+        }
+        Date now = new Date();
+        List<MediaDeletion> entries = publicIds.stream()
+                .map(publicId -> MediaDeletion.builder()
+                        .publicId(publicId)
+                        .messageType(messageType)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        List<String> ids = mongoTemplate.insertAll(entries).stream().map(MediaDeletion::getId).toList();
+        pending.addAndGet(entries.size());
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+        log.debug("Queued {} media files for deletion", entries.size());
+        return ids;
+    }
+
+    /**
+     * Queue one stored file for deletion.
+     */
+    public void enqueue(String publicId, MessageType messageType) {
+        enqueue(List.of(publicId), messageType);
+    }
+
+    /**
+     * Whether files of a media type are kept in storage and can be queued for deletion.
+     */
+    static boolean isStoredType(MessageType messageType) {
+        return messageType != null && STORED_TYPES.contains(messageType);
+    }
+
+    /**
+     * Withdraw queued deletions that turned out to be unnecessary.
+     *
+     * @param ids the queue entry IDs returned by {@link #enqueue(Collection, MessageType)}
+     */
+    public void cancel(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        long removed = mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), MediaDeletion.class).getDeletedCount();
+        pending.addAndGet(-removed);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorker() {
+        if (!workerEnabled) {
+            log.info("Media deletion worker disabled");
+            return;
+        }
+        Thread worker = new Thread(this::run, "media-deletion-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+    }
+
+    private void run() {
+        long minCallIntervalNanos = (long) (TimeUnit.HOURS.toNanos(1) / Math.max(ratePerHour, 0.001));
+        long lastCall = 0;
+        while (running) {
+            try {
+                refreshDepth();
+                List<MediaDeletion> claimed = claimDue();
+                if (claimed.isEmpty()) {
+                    synchronized (wakeUp) {
+                        wakeUp.wait(pollInterval.toMillis());
+                    }
+                    continue;
+                }
+
+                for (Map.Entry<String, List<MediaDeletion>> batch : batchByStorageKey(claimed).entrySet()) {
+                    long wait = lastCall + minCallIntervalNanos - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    lastCall = System.nanoTime();
+                    deleteBatch(batch.getKey(), batch.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Media deletion worker iteration failed: {}", e.getMessage());
+                sleepQuietly(pollInterval);
+            }
+        }
+    }
+
+    /**
+     * Lease up to one storage batch of due entries to this worker.
+     */
+    private List<MediaDeletion> claimDue() {
+        Date now = new Date();
+        Query due = new Query(Criteria.where("nextAttemptAt").lte(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(mediaStorage.maxBatchDelete());
+        due.fields().include("id");
+        List<String> ids = mongoTemplate.find(due, MediaDeletion.class).stream().map(MediaDeletion::getId).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String claim = workerId + ":" + now.getTime();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids).and("nextAttemptAt").lte(now)),
+                new Update().set("claimedBy", claim).set("nextAttemptAt", new Date(now.getTime() + lease.toMillis())),
+                MediaDeletion.class);
+        return mongoTemplate.find(new Query(Criteria.where("id").in(ids).and("claimedBy").is(claim)), MediaDeletion.class);
+    }
+
+    /**
+     * Group claimed entries into the storage calls that delete them, parking entries of types
+     * storage never holds, which were queued before {@link #enqueue} rejected them.
+     */
+    private Map<String, List<MediaDeletion>> batchByStorageKey(List<MediaDeletion> claimed) {
+        Map<String, List<MediaDeletion>> batches = new LinkedHashMap<>();
+        for (MediaDeletion entry : claimed) {
+            if (!isStoredType(entry.getMessageType())) {
+                park(entry, "Not a stored media type: " + entry.getMessageType());
+                continue;
+            }
+            batches.computeIfAbsent(mediaStorage.batchKey(entry.getMessageType()), key -> new ArrayList<>()).add(entry);
+        }
+        return batches;
+    }
+
+    private void deleteBatch(String batchKey, List<MediaDeletion> batch) {
+        // Deletions queued just before their object was removed, whose removal then did not happen
+        Set<String> registered = mediaObjectRegistry.findRegistered(
+                batch.stream().map(MediaDeletion::getPublicId).toList());
+        if (!registered.isEmpty()) {
+            log.info("Skipping deletion of {} files that are still registered", registered.size());
+            remove(batch.stream().filter(entry -> registered.contains(entry.getPublicId())).toList());
+            batch = batch.stream().filter(entry -> !registered.contains(entry.getPublicId())).toList();
+            if (batch.isEmpty()) {
+                return;
+            }
+        }
+
+        Map<String, String> failures;
+        try {
+            failures = mediaStorage.deleteAll(batch.stream().map(MediaDeletion::getPublicId).toList(),
+                    batch.get(0).getMessageType());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            log.warn("Failed to delete {} {} files, will retry: {}", batch.size(), batchKey, e.getMessage());
+            batch.forEach(entry -> scheduleRetry(entry, e.getMessage()));
+            return;
+        }
+
+        List<MediaDeletion> deleted = batch.stream().filter(entry -> !failures.containsKey(entry.getPublicId())).toList();
+        remove(deleted);
+        deletedCounter.increment(deleted.size());
+        log.info("Deleted {} {} files from storage", deleted.size(), batchKey);
+        if (!failures.isEmpty()) {
+            failedCounter.increment(failures.size());
+            log.warn("Storage did not delete {} {} files, will retry: {}", failures.size(), batchKey, failures);
+            batch.stream()
+                    .filter(entry -> failures.containsKey(entry.getPublicId()))
+                    .forEach(entry -> scheduleRetry(entry, failures.get(entry.getPublicId())));
+        }
+    }
+
+    private void remove(List<MediaDeletion> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        mongoTemplate.remove(new Query(Criteria.where("id").in(entries.stream().map(MediaDeletion::getId).toList())),
+                MediaDeletion.class);
+        pending.addAndGet(-entries.size());
+    }
+
+    private void scheduleRetry(MediaDeletion entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        Update update = new Update()
+                .set("attempts", attempts)
+                .set("lastError", error)
+                .unset("claimedBy");
+        if (attempts >= maxAttempts) {
+            update.unset("nextAttemptAt");
+            log.error("Giving up deleting media {} after {} attempts: {}", entry.getPublicId(), attempts, error);
+        } else {
+            long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+            long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+            update.set("nextAttemptAt", new Date(System.currentTimeMillis() + backoff + jitter));
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(entry.getId())), update, MediaDeletion.class);
+    }
+
+    private void park(MediaDeletion entry, String error) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(entry.getId())), new Update()
+                .set("lastError", error)
+                .unset("claimedBy")
+                .unset("nextAttemptAt"), MediaDeletion.class);
+        log.error("Parked deletion of media {}: {}", entry.getPublicId(), error);
+    }
+
+    private void refreshDepth() {
+        pending.set(mongoTemplate.count(new Query(Criteria.where("nextAttemptAt").exists(true)), MediaDeletion.class));
+        parked.set(mongoTemplate.count(new Query(Criteria.where("nextAttemptAt").exists(false)), MediaDeletion.class));
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MediaObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Reference counts of content-addressed media in the {@code media_objects} collection.
+ * <p>
+ * Only messages hold references. An upload records its time in {@code lastReferencedAt}
+ * instead, which keeps the object alive for {@code unreferenced-ttl} so the uploader can
+ * send it; objects without references past that grace period are removed. Removal is one
+ * atomic operation conditioned on both, so concurrent uploads, sends and deletions of the
+ * same content never drop an object that is still in use.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MediaObjectRegistry {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${media.unreferenced-ttl:24h}")
+    private Duration unreferencedTtl;
+
+    /**
+     * Record a new upload of stored content, if there is a live object holding it.
+     * Once found the object cannot expire before the grace period passes again.
+     *
+     * @param contentHash hex SHA-256 of the content
+     * @return the uploaded object
+     */
+    public Optional<MediaObject> acquire(String contentHash) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(contentHash)),
+                new Update().set("lastReferencedAt", new Date()),
+                FindAndModifyOptions.options().returnNew(true),
+                MediaObject.class));
+    }
+
+    /**
+     * Record a newly stored object.
+     *
+     * @param mediaObject the object, without references and with its upload time
+     * @return false if an object with the same content was registered concurrently
+     */
+    public boolean register(MediaObject mediaObject) {
+        try {
+            mongoTemplate.insert(mediaObject);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Media object {} was registered concurrently", mediaObject.getId());
+            return false;
+        }
+    }
+
+    /**
+     * Add a message's reference to a stored file.
+     *
+     * @param publicId the storage public ID
+     * @return false if the file is untracked or its upload already expired
+     */
+    public boolean reference(String publicId) {
+        return mongoTemplate.updateFirst(
+                new Query(Criteria.where("publicId").is(publicId)),
+                new Update().inc("refCount", 1),
+                MediaObject.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Drop one message's reference to a stored file.
+     *
+     * @param publicId the storage public ID
+     * @return the object after the update, or null if the file is untracked
+     */
+    public MediaObject release(String publicId) {
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("publicId").is(publicId)),
+                new Update().inc("refCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                MediaObject.class);
+    }
+
+    /**
+     * Remove an object if no message references it and it was not uploaded within the grace period.
+     *
+     * @param id the content hash
+     * @return whether the object was removed, so its stored files may be deleted
+     */
+    public boolean removeIfUnreferenced(String id) {
+        return mongoTemplate.remove(unreferenced().addCriteria(Criteria.where("id").is(id)), MediaObject.class)
+                .getDeletedCount() > 0;
+    }
+
+    /**
+     * Find objects that no message references and that were not uploaded within the grace period.
+     *
+     * @param limit the most objects to return
+     * @return the candidates, to be removed with {@link #removeIfUnreferenced}
+     */
+    public List<MediaObject> findUnreferenced(int limit) {
+        return mongoTemplate.find(unreferenced().limit(limit), MediaObject.class);
+    }
+
+    /**
+     * Public IDs among the given ones that still belong to a registered object, as its file or thumbnail.
+     *
+     * @param publicIds storage public IDs
+     * @return the IDs whose files must be kept
+     */
+    public Set<String> findRegistered(Collection<String> publicIds) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("publicId").in(publicIds),
+                Criteria.where("thumbnailPublicId").in(publicIds)));
+        query.fields().include("publicId", "thumbnailPublicId");
+        Set<String> registered = new HashSet<>();
+        for (MediaObject mediaObject : mongoTemplate.find(query, MediaObject.class)) {
+            registered.add(mediaObject.getPublicId());
+            if (mediaObject.getThumbnailPublicId() != null) {
+                registered.add(mediaObject.getThumbnailPublicId());
+            }
+        }
+        registered.retainAll(publicIds);
+        return registered;
+    }
+
+    private Query unreferenced() {
+        Date cutoff = new Date(System.currentTimeMillis() - unreferencedTtl.toMillis());
+        return new Query(Criteria.where("refCount").lte(0).and("lastReferencedAt").lt(cutoff));
+    }
+}
@@ -0,0 +1,325 @@
+package com.project.ChatNexus.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.MediaObject;
+import com.project.ChatNexus.model.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Post-upload stage that derives previews for media messages: a downscaled JPEG thumbnail,
+ * pixel dimensions and a BlurHash placeholder for images, and a poster frame URL for videos
+ * when the storage backend can derive one. Images are processed on a bounded worker pool
+ * after the upload response was sent; when the pool is saturated previews are skipped,
+ * and clients fall back to the full media URL.
+ * Finished previews are stored on the {@link MediaObject} and copied onto messages
+ * that already reference the file.
+ */
+@Service
+@Slf4j
+public class MediaPreviewService {
+
+    /** Preview attributes copied onto messages and notifications. */
+    public record Preview(String thumbnailUrl, Integer width, Integer height, String blurHash) {
+    }
+
+    private static final int BLUR_HASH_EDGE = 32;
+
+    private final MediaStorage mediaStorage;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int maxEdge;
+    private final float jpegQuality;
+    private final Path workDir;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Preview> previews;
+    // Files without a finished preview, so sends during generation do not query MongoDB each time
+    private final Cache<String, Boolean> missing;
+    private final Timer generationTimer;
+    private final Counter generatedCounter;
+    private final Counter skippedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+
+    public MediaPreviewService(MediaStorage mediaStorage,
+                               MongoTemplate mongoTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${media.previews.enabled:true}") boolean enabled,
+                               @Value("${media.previews.workers:2}") int workerCount,
+                               @Value("${media.previews.queue-capacity:64}") int queueCapacity,
+                               @Value("${media.previews.max-edge:320}") int maxEdge,
+                               @Value("${media.previews.jpeg-quality:0.8}") float jpegQuality,
+                               @Value("${media.previews.work-dir:${java.io.tmpdir}/chatnexus-previews}") Path workDir,
+                               @Value("${media.previews.miss-ttl:5s}") Duration missTtl) throws IOException {
+        this.mediaStorage = mediaStorage;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+        this.workDir = Files.createDirectories(workDir);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "media-preview-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.previews = Caffeine.newBuilder().maximumSize(10_000).build();
+        this.missing = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(missTtl).build();
+
+        Gauge.builder("chatnexus.media.previews.queue", workers, pool -> pool.getQueue().size())
+                .description("Images waiting for preview generation")
+                .register(meterRegistry);
+        this.generationTimer = Timer.builder("chatnexus.media.previews.duration")
+                .description("Time to decode, scale, encode and store one image preview")
+                .register(meterRegistry);
+        this.generatedCounter = previewCounter(meterRegistry, "generated");
+        this.skippedCounter = previewCounter(meterRegistry, "skipped");
+        this.rejectedCounter = previewCounter(meterRegistry, "rejected");
+        this.failedCounter = previewCounter(meterRegistry, "failed");
+    }
+
+    private static Counter previewCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("chatnexus.media.previews")
+                .description("Media preview generation by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fill in the preview fields known without processing, i.e. the poster URL of a video.
+     *
+     * @param mediaObject a newly stored object, before it is registered
+     */
+    public void prepare(MediaObject mediaObject) {
+        if (enabled && mediaObject.getMessageType() == MessageType.VIDEO) {
+            mediaStorage.posterUrl(mediaObject.getPublicId(), maxEdge).ifPresent(mediaObject::setThumbnailUrl);
+        }
+    }
+
+    /**
+     * Queue preview generation for a newly stored image. The staged file is copied,
+     * so the caller may delete it as soon as this returns.
+     *
+     * @param mediaObject the registered object
+     * @param source      the staged upload
+     */
+    public void submit(MediaObject mediaObject, Path source) {
+        if (!enabled || mediaObject.getMessageType() != MessageType.IMAGE) {
+            return;
+        }
+        if (workers.getQueue().remainingCapacity() == 0) {
+            rejectedCounter.increment();
+            log.warn("Preview queue full, skipping preview of {}", mediaObject.getPublicId());
+            return;
+        }
+        Path copy = workDir.resolve(UUID.randomUUID() + ".src");
+        try {
+            Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+            workers.execute(() -> generate(mediaObject, copy));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Preview queue full, skipping preview of {}", mediaObject.getPublicId());
+            deleteQuietly(copy);
+        } catch (IOException e) {
+            failedCounter.increment();
+            log.error("Failed to stage preview source for {}: {}", mediaObject.getPublicId(), e.getMessage());
+            deleteQuietly(copy);
+        }
+    }
+
+    /**
+     * Find the finished preview of a stored file.
+     *
+     * @param publicId the storage public ID
+     * @return the preview, empty while it is pending or if none can be made
+     */
+    public Optional<Preview> find(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return Optional.empty();
+        }
+        Preview cached = previews.getIfPresent(publicId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (missing.getIfPresent(publicId) != null) {
+            return Optional.empty();
+        }
+        Query query = new Query(Criteria.where("publicId").is(publicId));
+        query.fields().include("thumbnailUrl", "width", "height", "blurHash");
+        MediaObject mediaObject = mongoTemplate.findOne(query, MediaObject.class);
+        if (mediaObject == null || (mediaObject.getThumbnailUrl() == null && mediaObject.getWidth() == null)) {
+            missing.put(publicId, Boolean.TRUE);
+            return Optional.empty();
+        }
+        Preview preview = new Preview(mediaObject.getThumbnailUrl(), mediaObject.getWidth(),
+                mediaObject.getHeight(), mediaObject.getBlurHash());
+        previews.put(publicId, preview);
+        return Optional.of(preview);
+    }
+
+    /**
+     * Forget the cached preview of a file whose last reference was released.
+     *
+     * @param publicId the storage public ID
+     */
+    public void evict(String publicId) {
+        previews.invalidate(publicId);
+        missing.invalidate(publicId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void generate(MediaObject mediaObject, Path source) {
+        Timer.Sample sample = Timer.start();
+        Path thumbnail = workDir.resolve(UUID.randomUUID() + ".jpg");
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                skippedCounter.increment();
+                log.debug("No image decoder for {}, skipping preview", mediaObject.getPublicId());
+                return;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage scaled;
+            int width;
+            int height;
+            try {
+                reader.setInput(in, true, true);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+                // Subsample while decoding so large photos never materialize at full resolution
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                scaled = scale(reader.read(0, param), maxEdge);
+            } finally {
+                reader.dispose();
+            }
+
+            writeJpeg(scaled, thumbnail);
+            String blurHash = BlurHash.encode(scale(scaled, BLUR_HASH_EDGE), 4, 3);
+            MediaStorage.StoredMedia stored = mediaStorage.store(thumbnail, MessageType.IMAGE, "jpg");
+            publish(mediaObject, stored, width, height, blurHash);
+            generatedCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("Failed to generate preview for {}: {}", mediaObject.getPublicId(), e.getMessage());
+        } finally {
+            sample.stop(generationTimer);
+            deleteQuietly(source);
+            deleteQuietly(thumbnail);
+        }
+    }
+
+    private void publish(MediaObject mediaObject, MediaStorage.StoredMedia thumbnail,
+                         int width, int height, String blurHash) throws IOException {
+        long matched = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(mediaObject.getId())),
+                new Update()
+                        .set("thumbnailUrl", thumbnail.url())
+                        .set("thumbnailPublicId", thumbnail.publicId())
+                        .set("width", width)
+                        .set("height", height)
+                        .set("blurHash", blurHash),
+                MediaObject.class).getMatchedCount();
+        if (matched == 0) {
+            // Every reference was released while the preview was generated
+            mediaStorage.delete(thumbnail.publicId(), MessageType.IMAGE);
+            return;
+        }
+        previews.put(mediaObject.getPublicId(), new Preview(thumbnail.url(), width, height, blurHash));
+        missing.invalidate(mediaObject.getPublicId());
+
+        // Messages sent before the preview was ready
+        Query messages = new Query(Criteria.where("mediaPublicId").is(mediaObject.getPublicId()));
+        Update update = new Update()
+                .set("thumbnailUrl", thumbnail.url())
+                .set("mediaWidth", width)
+                .set("mediaHeight", height)
+                .set("blurHash", blurHash);
+        mongoTemplate.updateMulti(messages, update, ChatMessage.class);
+        mongoTemplate.updateMulti(messages, update, GroupMessage.class);
+        log.info("Generated {}x{} preview for {}", width, height, mediaObject.getPublicId());
+    }
+
+    private static BufferedImage scale(BufferedImage source, int edge) {
+        double ratio = Math.min(1.0, (double) edge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha channel; flatten transparency onto white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete preview work file {}: {}", path, e.getMessage());
+        }
+    }
+}
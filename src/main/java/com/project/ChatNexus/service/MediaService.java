@@ -0,0 +1,350 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MediaObject;
+import com.project.ChatNexus.model.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates media uploads and hands them to the configured {@link MediaStorage}.
+ * Uploads are content-addressed: a file whose SHA-256 matches a stored object
+ * is not stored again but shares that object through {@link MediaObjectRegistry}.
+ * Messages reference files when they are saved; uploads that are never sent expire
+ * after {@code media.unreferenced-ttl} and are deleted by a periodic sweep.
+ */
+@Service
+@Slf4j
+public class MediaService {
+
+    private final MediaStorage mediaStorage;
+    private final MediaObjectRegistry mediaObjectRegistry;
+    private final MediaPreviewService mediaPreviewService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final Counter storedCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter expiredCounter;
+    private final ScheduledExecutorService sweeper;
+
+    @Value("${media.unreferenced-sweep-interval:1h}")
+    private Duration sweepInterval;
+
+    private static final int EXPIRY_BATCH_SIZE = 100;
+
+    // Allowed file extensions
+    private static final List<String> ALLOWED_IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "webp", "bmp");
+    private static final List<String> ALLOWED_VIDEO_EXTENSIONS = Arrays.asList("mp4", "mov", "avi", "mkv", "webm");
+    private static final List<String> ALLOWED_AUDIO_EXTENSIONS = Arrays.asList("mp3", "wav", "ogg", "m4a", "aac");
+
+    public MediaService(MediaStorage mediaStorage, MediaObjectRegistry mediaObjectRegistry,
+                        MediaPreviewService mediaPreviewService, MediaDeletionQueue mediaDeletionQueue,
+                        MeterRegistry meterRegistry) {
+        this.mediaStorage = mediaStorage;
+        this.mediaObjectRegistry = mediaObjectRegistry;
+        this.mediaPreviewService = mediaPreviewService;
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.storedCounter = Counter.builder("chatnexus.media.uploads")
+                .description("Media uploads by outcome")
+                .tag("result", "stored")
+                .register(meterRegistry);
+        this.deduplicatedCounter = Counter.builder("chatnexus.media.uploads")
+                .description("Media uploads by outcome")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("chatnexus.media.unreferenced.expired")
+                .description("Uploaded media deleted because no message referenced it")
+                .register(meterRegistry);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-unreferenced-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSweeper() {
+        long seconds = Math.max(1, sweepInterval.toSeconds());
+        sweeper.scheduleWithFixedDelay(this::expireUnreferenced, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Upload file to storage.
+     * The container's disk-backed temp file is moved into place rather than copied, so the body
+     * is never held on the heap as a whole and is read once more only to hash it; its type is
+     * checked against the leading magic bytes first.
+     * @param file the file to upload
+     * @return Map containing url and publicId
+     */
+    public Map<String, Object> uploadFile(MultipartFile file) throws IOException {
+        String originalFilename = file.getOriginalFilename();
+        String extension = getFileExtension(originalFilename).toLowerCase();
+        requireMessageType(extension);
+
+        // Take over the container's temp file; Tomcat moves it instead of copying when it is on disk
+        Path staged = Files.createTempFile("chatnexus-upload-", "." + extension);
+        try {
+            file.transferTo(staged.toFile());
+            return uploadFile(staged, originalFilename, file.getContentType());
+        } finally {
+            Files.deleteIfExists(staged);
+        }
+    }
+
+    /**
+     * Upload a file already staged on local disk, e.g. an assembled chunked upload.
+     * The caller keeps ownership of the staged file.
+     * @param path the staged file
+     * @param originalFilename the client's file name
+     * @param contentType the content type declared by the client
+     * @return Map containing url and publicId
+     */
+    public Map<String, Object> uploadFile(Path path, String originalFilename, String contentType) throws IOException {
+        String extension = getFileExtension(originalFilename).toLowerCase();
+        MessageType messageType = requireMessageType(extension);
+        MediaSignatures.verify(extension, messageType, contentType,
+                MediaSignatures.readHeader(Files.newInputStream(path)));
+
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return upload(path, HexFormat.of().formatHex(digest.digest()), originalFilename,
+                messageType, contentType, Files.size(path));
+    }
+
+    private MessageType requireMessageType(String extension) {
+        MessageType messageType = getMessageType(extension);
+        if (messageType == null) {
+            throw new IllegalArgumentException("File type not supported: " + extension);
+        }
+        return messageType;
+    }
+
+    private Map<String, Object> upload(Path path, String contentHash, String originalFilename, MessageType messageType,
+                                       String contentType, long size) throws IOException {
+        MediaObject mediaObject = mediaObjectRegistry.acquire(contentHash).orElse(null);
+        if (mediaObject != null) {
+            deduplicatedCounter.increment();
+            log.info("Upload of {} matches stored media {}, skipping storage", originalFilename, mediaObject.getPublicId());
+        } else {
+            mediaObject = store(path, contentHash, getFileExtension(originalFilename).toLowerCase(), messageType, size);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("url", mediaObject.getUrl());
+        result.put("publicId", mediaObject.getPublicId());
+        result.put("messageType", messageType);
+        result.put("fileName", originalFilename);
+        result.put("fileSize", size);
+        result.put("mimeType", contentType);
+        result.put("thumbnailUrl", mediaObject.getThumbnailUrl());
+        result.put("mediaWidth", mediaObject.getWidth());
+        result.put("mediaHeight", mediaObject.getHeight());
+        result.put("blurHash", mediaObject.getBlurHash());
+        return result;
+    }
+
+    private MediaObject store(Path path, String contentHash, String extension,
+                              MessageType messageType, long size) throws IOException {
+        MediaStorage.StoredMedia stored = mediaStorage.store(path, messageType, extension);
+        storedCounter.increment();
+        log.info("File uploaded successfully: {}", stored.url());
+
+        Date now = new Date();
+        MediaObject created = MediaObject.builder()
+                .id(contentHash)
+                .publicId(stored.publicId())
+                .url(stored.url())
+                .messageType(messageType)
+                .size(size)
+                .refCount(0)
+                .createdAt(now)
+                .lastReferencedAt(now)
+                .build();
+        mediaPreviewService.prepare(created);
+        if (mediaObjectRegistry.register(created)) {
+            mediaPreviewService.submit(created, path);
+            return created;
+        }
+
+        // The same content was stored concurrently: share that copy and drop ours
+        Optional<MediaObject> winner = mediaObjectRegistry.acquire(contentHash);
+        if (winner.isEmpty()) {
+            // The other copy is losing its last reference; keep ours without deduplication
+            log.warn("Keeping untracked copy {} of content {}", stored.publicId(), contentHash);
+            return created;
+        }
+        mediaDeletionQueue.enqueue(stored.publicId(), messageType);
+        return winner.get();
+    }
+
+    /**
+     * Add a saved message's reference to a stored file, so it outlives the upload grace period.
+     * @param publicId the public ID of the file, may be null for messages without media
+     */
+    public void referenceFile(String publicId) {
+        if (publicId == null || publicId.isEmpty()) {
+            return;
+        }
+        if (!mediaObjectRegistry.reference(publicId)) {
+            log.debug("File {} is untracked, not counting the reference", publicId);
+        }
+    }
+
+    /**
+     * Release one message's reference to a stored file.
+     * Once no message references the file any more, it is queued for deletion from storage.
+     * @param publicId the public ID of the file
+     * @param messageType the type of media the file holds
+     */
+    public void releaseFile(String publicId, MessageType messageType) {
+        MediaObject released = mediaObjectRegistry.release(publicId);
+        if (released == null) {
+            // The file predates deduplication; delete it as before, if the message says how it is stored
+            if (!MediaDeletionQueue.isStoredType(messageType)) {
+                log.warn("Untracked file {} belongs to a {} message, leaving it in storage", publicId, messageType);
+                return;
+            }
+            mediaPreviewService.evict(publicId);
+            mediaDeletionQueue.enqueue(publicId, messageType);
+            log.info("Untracked file {} queued for deletion", publicId);
+            return;
+        }
+        if (released.getRefCount() > 0) {
+            log.debug("File {} is still referenced, keeping it", publicId);
+            return;
+        }
+        if (deleteIfUnreferenced(released)) {
+            log.info("File {} queued for deletion", publicId);
+        } else {
+            log.debug("File {} was uploaded recently, keeping it until it expires", publicId);
+        }
+    }
+
+    /**
+     * Delete uploads that no message referenced within the grace period.
+     */
+    void expireUnreferenced() {
+        try {
+            int removed;
+            do {
+                removed = 0;
+                for (MediaObject candidate : mediaObjectRegistry.findUnreferenced(EXPIRY_BATCH_SIZE)) {
+                    if (deleteIfUnreferenced(candidate)) {
+                        removed++;
+                    }
+                }
+                expiredCounter.increment(removed);
+                if (removed > 0) {
+                    log.info("Queued {} unreferenced uploads for deletion", removed);
+                }
+            } while (removed == EXPIRY_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Failed to expire unreferenced uploads: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove an object that nothing uses any more and queue its files for deletion.
+     * The deletions are queued before the object is removed, so a crash in between cannot
+     * leak the files; the deletion worker skips files whose object is still registered.
+     *
+     * @return false if the object was referenced or uploaded again meanwhile and was kept
+     */
+    private boolean deleteIfUnreferenced(MediaObject mediaObject) {
+        List<String> queued = new ArrayList<>(mediaDeletionQueue.enqueue(
+                List.of(mediaObject.getPublicId()), mediaObject.getMessageType()));
+        if (mediaObject.getThumbnailPublicId() != null) {
+            queued.addAll(mediaDeletionQueue.enqueue(List.of(mediaObject.getThumbnailPublicId()), MessageType.IMAGE));
+        }
+        if (!mediaObjectRegistry.removeIfUnreferenced(mediaObject.getId())) {
+            mediaDeletionQueue.cancel(queued);
+            return false;
+        }
+        mediaPreviewService.evict(mediaObject.getPublicId());
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Get the file extension from filename
+     */
+    private String getFileExtension(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return "";
+        }
+        int lastDotIndex = filename.lastIndexOf('.');
+        if (lastDotIndex == -1) {
+            return "";
+        }
+        return filename.substring(lastDotIndex + 1);
+    }
+
+    /**
+     * Determine MessageType based on file extension
+     */
+    public MessageType getMessageType(String extension) {
+        if (ALLOWED_IMAGE_EXTENSIONS.contains(extension.toLowerCase())) {
+            return MessageType.IMAGE;
+        } else if (ALLOWED_VIDEO_EXTENSIONS.contains(extension.toLowerCase())) {
+            return MessageType.VIDEO;
+        } else if (ALLOWED_AUDIO_EXTENSIONS.contains(extension.toLowerCase())) {
+            return MessageType.AUDIO;
+        }
+        return null;
+    }
+
+    /**
+     * Check if file extension is allowed
+     */
+    public boolean isFileAllowed(String filename) {
+        String extension = getFileExtension(filename).toLowerCase();
+        return ALLOWED_IMAGE_EXTENSIONS.contains(extension)
+                || ALLOWED_VIDEO_EXTENSIONS.contains(extension)
+                || ALLOWED_AUDIO_EXTENSIONS.contains(extension);
+    }
+
+    /**
+     * Get allowed file extensions as comma-separated string
+     */
+    public String getAllowedExtensions() {
+        StringBuilder sb = new StringBuilder();
+        ALLOWED_IMAGE_EXTENSIONS.forEach(ext -> sb.append(".").append(ext).append(","));
+        ALLOWED_VIDEO_EXTENSIONS.forEach(ext -> sb.append(".").append(ext).append(","));
+        ALLOWED_AUDIO_EXTENSIONS.forEach(ext -> sb.append(".").append(ext).append(","));
+        return sb.substring(0, sb.length() - 1);
+    }
+}
+
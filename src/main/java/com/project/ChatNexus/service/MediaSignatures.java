@@ -0,0 +1,117 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MessageType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks an upload's declared content type and leading magic bytes against its file extension,
+ * so a renamed or mislabelled file is rejected before it is handed to storage.
+ * Only the first {@link #HEADER_LENGTH} bytes of the body are ever read.
+ */
+public final class MediaSignatures {
+
+    /** Number of leading bytes needed to recognise every supported format. */
+    public static final int HEADER_LENGTH = 16;
+
+    private MediaSignatures() {
+    }
+
+    /**
+     * Read the leading bytes of a stream, closing it afterwards.
+     *
+     * @param in the upload body
+     * @return up to {@link #HEADER_LENGTH} bytes
+     */
+    public static byte[] readHeader(InputStream in) throws IOException {
+        try (in) {
+            return in.readNBytes(HEADER_LENGTH);
+        }
+    }
+
+    /**
+     * Verify that the declared content type and the magic bytes agree with the extension.
+     *
+     * @param extension   lower-case file extension
+     * @param type        message type derived from the extension
+     * @param contentType content type declared by the client, may be null
+     * @param header      leading bytes of the body
+     * @throws IllegalArgumentException if either check fails
+     */
+    public static void verify(String extension, MessageType type, String contentType, byte[] header) {
+        if (!isDeclaredTypeCompatible(type, contentType)) {
+            throw new IllegalArgumentException("Content type " + contentType + " does not match ." + extension + " file");
+        }
+        if (!matches(extension, header)) {
+            throw new IllegalArgumentException("File content does not match ." + extension + " format");
+        }
+    }
+
+    private static boolean isDeclaredTypeCompatible(MessageType type, String contentType) {
+        if (contentType == null || contentType.isBlank()
+                || contentType.startsWith("application/octet-stream")) {
+            return true;
+        }
+        String declared = contentType.toLowerCase();
+        return switch (type) {
+            case IMAGE -> declared.startsWith("image/");
+            // mp4, webm and ogg containers carry either, and browsers label them inconsistently
+            case VIDEO, AUDIO -> declared.startsWith("video/") || declared.startsWith("audio/");
+            default -> false;
+        };
+    }
+
+    private static boolean matches(String extension, byte[] h) {
+        return switch (extension) {
+            case "jpg", "jpeg" -> startsWith(h, 0, 0xFF, 0xD8, 0xFF);
+            case "png" -> startsWith(h, 0, 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A);
+            case "gif" -> ascii(h, 0, "GIF87a") || ascii(h, 0, "GIF89a");
+            case "webp" -> ascii(h, 0, "RIFF") && ascii(h, 8, "WEBP");
+            case "bmp" -> ascii(h, 0, "BM");
+            case "mp4", "mov", "m4a" -> ascii(h, 4, "ftyp") || ascii(h, 4, "moov")
+                    || ascii(h, 4, "mdat") || ascii(h, 4, "wide") || ascii(h, 4, "free");
+            case "avi" -> ascii(h, 0, "RIFF") && ascii(h, 8, "AVI ");
+            case "mkv", "webm" -> startsWith(h, 0, 0x1A, 0x45, 0xDF, 0xA3);
+            case "mp3" -> ascii(h, 0, "ID3") || isMpegFrameSync(h);
+            case "wav" -> ascii(h, 0, "RIFF") && ascii(h, 8, "WAVE");
+            case "ogg" -> ascii(h, 0, "OggS");
+            case "aac" -> ascii(h, 0, "ADIF") || ascii(h, 0, "ID3") || isAdtsSync(h);
+            default -> false;
+        };
+    }
+
+    private static boolean isMpegFrameSync(byte[] h) {
+        return h.length >= 2 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xE0) == 0xE0;
+    }
+
+    private static boolean isAdtsSync(byte[] h) {
+        return h.length >= 2 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xF6) == 0xF0;
+    }
+
+    private static boolean startsWith(byte[] h, int offset, int... expected) {
+        if (h.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((h[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(byte[] h, int offset, String expected) {
+        byte[] bytes = expected.getBytes(StandardCharsets.US_ASCII);
+        if (h.length < offset + bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (h[offset + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
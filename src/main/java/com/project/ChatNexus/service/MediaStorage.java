@@ -0,0 +1,97 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MessageType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Backend that keeps uploaded media files, selected with {@code media.storage.type}.
+ * Files are addressed by the public ID returned from {@link #store}.
+ */
+public interface MediaStorage {
+
+    /**
+     * Store a validated file staged on local disk. The staged file is left in place.
+     *
+     * @param source      the staged file
+     * @param messageType the type of media the file holds
+     * @param extension   lower-case file extension
+     * @return the public ID and URL of the stored file
+     */
+    StoredMedia store(Path source, MessageType messageType, String extension) throws IOException;
+
+    /**
+     * Delete a stored file. Deleting a file that does not exist is not an error.
+     *
+     * @param publicId    the public ID returned by {@link #store}
+     * @param messageType the type of media the file holds
+     */
+    void delete(String publicId, MessageType messageType) throws IOException;
+
+    /**
+     * Largest number of files {@link #deleteAll} accepts in one call.
+     */
+    default int maxBatchDelete() {
+        return 100;
+    }
+
+    /**
+     * Key of the {@link #deleteAll} call a file can be deleted in. Files whose media types have
+     * the same key are deleted together, and the call gets the type of one of them.
+     *
+     * @param messageType the type of media the file holds
+     * @return the batch key
+     */
+    default String batchKey(MessageType messageType) {
+        return messageType.name();
+    }
+
+    /**
+     * Delete several stored files with the same {@link #batchKey}, in as few backend calls as possible.
+     * Missing files are not an error.
+     *
+     * @param publicIds    at most {@link #maxBatchDelete()} public IDs
+     * @param messageType  the type of media the files hold, or of any file with the same batch key
+     * @return the public IDs that were not deleted, each with the reason; empty if all were
+     * @throws IOException if the whole call failed
+     */
+    default Map<String, String> deleteAll(List<String> publicIds, MessageType messageType) throws IOException {
+        Map<String, String> failures = new HashMap<>();
+        for (String publicId : publicIds) {
+            try {
+                delete(publicId, messageType);
+            } catch (IOException e) {
+                failures.put(publicId, e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Build the URL clients fetch a stored file from.
+     *
+     * @param publicId    the public ID returned by {@link #store}
+     * @param messageType the type of media the file holds
+     * @return the file URL
+     */
+    String url(String publicId, MessageType messageType);
+
+    /**
+     * Build the URL of a still frame of a stored video, if the backend can derive one.
+     *
+     * @param publicId the public ID of the video
+     * @param maxEdge  longest edge of the frame in pixels
+     * @return the poster URL, empty if the backend cannot extract frames
+     */
+    default Optional<String> posterUrl(String publicId, int maxEdge) {
+        return Optional.empty();
+    }
+
+    record StoredMedia(String publicId, String url) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.MessagePageResponse;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor over (timestamp, id) used to page through
+ * conversation history without skip/offset scans.
+ */
+public record MessageCursor(Date timestamp, String id) {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Encode this cursor as a URL-safe token.
+     */
+    public String encode() {
+        String raw = timestamp.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token.
+     *
+     * @param token the token received from a client, may be null
+     * @return the cursor, or null if no token was given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static MessageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new MessageCursor(new Date(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * Id value as stored in Mongo, so that range comparisons on {@code _id} match its BSON type.
+     */
+    private Object idValue() {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * Clamp a requested page size to the allowed range.
+     */
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Build a range query for one page of a conversation.
+     * Without {@code after} the page is read newest-first (latest page or older than {@code before}),
+     * otherwise oldest-first. One extra row is fetched to detect whether more messages exist.
+     *
+     * @param scope          criteria selecting the conversation
+     * @param timestampField name of the message timestamp field
+     * @param before         return messages strictly older than this cursor, may be null
+     * @param after          return messages strictly newer than this cursor, may be null
+     * @param limit          page size
+     * @return the query
+     */
+    public static Query pageQuery(Criteria scope, String timestampField,
+                                  MessageCursor before, MessageCursor after, int limit) {
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of 'before' and 'after' may be specified");
+        }
+
+        Criteria criteria = scope;
+        Sort.Direction direction = Sort.Direction.DESC;
+        if (before != null) {
+            criteria = new Criteria().andOperator(scope, new Criteria().orOperator(
+                    Criteria.where(timestampField).lt(before.timestamp()),
+                    Criteria.where(timestampField).is(before.timestamp()).and("id").lt(before.idValue())));
+        } else if (after != null) {
+            criteria = new Criteria().andOperator(scope, new Criteria().orOperator(
+                    Criteria.where(timestampField).gt(after.timestamp()),
+                    Criteria.where(timestampField).is(after.timestamp()).and("id").gt(after.idValue())));
+            direction = Sort.Direction.ASC;
+        }
+
+        return new Query(criteria)
+                .with(Sort.by(direction, timestampField, "id"))
+                .limit(limit + 1);
+    }
+
+    /**
+     * Turn the rows returned by {@link #pageQuery} into a chronologically ordered page.
+     *
+     * @param rows      rows in query order, possibly including the extra look-ahead row
+     * @param limit     page size
+     * @param ascending whether the rows were read oldest-first
+     * @param cursorOf  function extracting the cursor of a message
+     * @return the page
+     */
+    public static <T> MessagePageResponse<T> toPage(List<T> rows, int limit, boolean ascending,
+                                                    Function<T, MessageCursor> cursorOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> messages = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+        if (!ascending) {
+            Collections.reverse(messages);
+        }
+
+        MessagePageResponse.MessagePageResponseBuilder<T> builder = MessagePageResponse.<T>builder()
+                .messages(messages)
+                .hasMore(hasMore);
+        if (!messages.isEmpty()) {
+            builder.olderCursor(cursorOf.apply(messages.get(0)).encode())
+                    .newerCursor(cursorOf.apply(messages.get(messages.size() - 1)).encode());
+        }
+        return builder.build();
+    }
+}
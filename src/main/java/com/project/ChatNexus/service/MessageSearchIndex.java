@@ -0,0 +1,593 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.MessageSearchResponse;
+import com.project.ChatNexus.dto.response.MessageSearchResult;
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.MessageType;
+import com.project.ChatNexus.repository.GroupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index of chat and group message content, kept in a Lucene index on local disk.
+ * <p>
+ * The save paths queue each message here and a single indexer thread applies the queue in
+ * batches and refreshes the searcher, so a message becomes searchable shortly after it is
+ * sent without slowing the send down. The time from save until searchable is reported as
+ * {@code chatnexus.search.index.lag}.
+ * <p>
+ * Each commit records a checkpoint, the time up to which every saved message was indexed.
+ * On startup messages since the checkpoint are re-read from MongoDB by their ObjectId, and
+ * messages dropped because the queue was full are caught up the same way. An empty index is
+ * rebuilt from MongoDB, as is any index when {@code search.rebuild-on-startup} is set;
+ * {@code /actuator/search} only reports the index state.
+ * Searchers keep the previous view of the index until a rebuild is complete.
+ */
+@Component
+@Endpoint(id = "search")
+@Slf4j
+public class MessageSearchIndex {
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_MESSAGE_ID = "messageId";
+    private static final String FIELD_CONVERSATION = "conversation";
+    private static final String FIELD_CHAT_ID = "chatId";
+    private static final String FIELD_GROUP_ID = "groupId";
+    private static final String FIELD_PARTICIPANT = "participant";
+    private static final String FIELD_SENDER_ID = "senderId";
+    private static final String FIELD_SENDER_NAME = "senderName";
+    private static final String FIELD_RECIPIENT_ID = "recipientId";
+    private static final String FIELD_MESSAGE_TYPE = "messageType";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final String FIELD_CONTENT = "content";
+    private static final String CHECKPOINT = "checkpoint";
+
+    // Rewinding the checkpoint covers clock skew and messages persisted late by write-behind
+    private static final long CHECKPOINT_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        // Offsets in the postings let the highlighter skip re-analyzing the content
+        CONTENT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_TYPE.freeze();
+    }
+
+    /**
+     * A document to add or replace under {@code key}, or a delete of all documents matching {@code delete}.
+     */
+    private record Pending(String key, Document document, Term delete, long savedAt, long enqueuedAt) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final GroupRepository groupRepository;
+    private final boolean enabled;
+    private final boolean rebuildOnStartup;
+    private final int batchSize;
+    private final int maxResults;
+    private final Duration commitInterval;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final BlockingQueue<Pending> queue;
+    private final Thread indexer;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    // Earliest save time of a message that was not queued, or Long.MAX_VALUE
+    private final AtomicLong catchUpFrom = new AtomicLong(Long.MAX_VALUE);
+    private volatile boolean running;
+    private volatile boolean rebuilding;
+    private volatile long checkpoint;
+    private volatile Date lastCommit;
+    private volatile Date lastRebuild;
+
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    private final Timer lagTimer;
+    private final Timer queryTimer;
+    private final Timer rebuildTimer;
+    private final Counter droppedCounter;
+
+    public MessageSearchIndex(MongoTemplate mongoTemplate,
+                              GroupRepository groupRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${search.enabled:true}") boolean enabled,
+                              @Value("${search.index-dir:${java.io.tmpdir}/chatnexus-search}") Path indexDir,
+                              @Value("${search.batch-size:500}") int batchSize,
+                              @Value("${search.queue-capacity:10000}") int queueCapacity,
+                              @Value("${search.commit-interval:30s}") Duration commitInterval,
+                              @Value("${search.max-results:1000}") int maxResults,
+                              @Value("${search.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.groupRepository = groupRepository;
+        this.enabled = enabled;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.maxResults = maxResults;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("chatnexus.search.index.queue", queue, Collection::size)
+                .description("Messages waiting to be indexed")
+                .register(meterRegistry);
+        Gauge.builder("chatnexus.search.index.documents", this, index -> index.writer != null
+                        ? index.writer.getDocStats().numDocs : 0)
+                .description("Messages in the search index")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("chatnexus.search.index.lag")
+                .description("Time from saving a message until it is searchable")
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("chatnexus.search.queries")
+                .description("Time spent answering message searches")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("chatnexus.search.index.rebuild")
+                .description("Time spent rebuilding the search index from MongoDB")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("chatnexus.search.index.dropped")
+                .description("Messages not queued because the queue was full; caught up from MongoDB")
+                .register(meterRegistry);
+
+        this.indexer = new Thread(this::run, "message-search-indexer");
+        this.indexer.setDaemon(true);
+        if (enabled) {
+            open(indexDir);
+        }
+    }
+
+    /**
+     * Queue a direct message for indexing.
+     */
+    public void index(ChatMessage message) {
+        pendingOf(message).ifPresent(this::offer);
+    }
+
+    /**
+     * Queue a group message for indexing.
+     */
+    public void index(GroupMessage message) {
+        pendingOf(message).ifPresent(this::offer);
+    }
+
+    /**
+     * Queue removal of every message of a deleted group.
+     */
+    public void deleteGroup(String groupId) {
+        if (enabled) {
+            offer(new Pending(null, null, new Term(FIELD_GROUP_ID, groupId), System.currentTimeMillis(), System.nanoTime()));
+        }
+    }
+
+    /**
+     * Search the content of messages in the requester's direct chats and current groups.
+     *
+     * @param requesterId the searching user
+     * @param text        the query; supports quoted phrases, {@code -exclusion}, {@code prefix*} and {@code |} for OR
+     * @param page        zero-based page number
+     * @param size        results per page
+     * @param recent      order by newest first instead of relevance
+     * @return one page of results
+     */
+    public MessageSearchResponse search(String requesterId, String text, int page, int size, boolean recent) {
+        if (!enabled) {
+            throw new IllegalStateException("Message search is disabled");
+        }
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            throw new IllegalArgumentException("Page must be at least 0 and size between 1 and 100");
+        }
+
+        MessageSearchResponse.MessageSearchResponseBuilder response = MessageSearchResponse.builder()
+                .query(text)
+                .page(page)
+                .size(size)
+                .results(List.of());
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_CONTENT);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        org.apache.lucene.search.Query content = parser.parse(text);
+        int from = page * size;
+        if (content == null || from >= maxResults) {
+            // Only stop words, or deeper than results are kept
+            return response.build();
+        }
+
+        org.apache.lucene.search.Query query = new BooleanQuery.Builder()
+                .add(content, BooleanClause.Occur.MUST)
+                .add(scopeOf(requesterId), BooleanClause.Occur.FILTER)
+                .build();
+        int limit = Math.min(from + size, maxResults);
+
+        return queryTimer.record(() -> {
+            IndexSearcher searcher = null;
+            try {
+                searcher = searcherManager.acquire();
+                TopDocs top = recent
+                        ? searcher.search(query, limit, new Sort(new SortField(FIELD_TIMESTAMP, SortField.Type.LONG, true)))
+                        : searcher.search(query, limit);
+                ScoreDoc[] pageDocs = Arrays.copyOfRange(top.scoreDocs, Math.min(from, top.scoreDocs.length),
+                        top.scoreDocs.length);
+                String[] highlights = UnifiedHighlighter.builder(searcher, analyzer)
+                        .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "… ", true))
+                        .build()
+                        .highlight(FIELD_CONTENT, content, new TopDocs(top.totalHits, pageDocs), 2);
+
+                StoredFields storedFields = searcher.storedFields();
+                List<MessageSearchResult> results = new ArrayList<>(pageDocs.length);
+                for (int i = 0; i < pageDocs.length; i++) {
+                    results.add(toResult(storedFields.document(pageDocs[i].doc), highlights[i]));
+                }
+                return response
+                        .totalHits(top.totalHits.value())
+                        .hasMore(from + size < Math.min(top.totalHits.value(), maxResults))
+                        .results(results)
+                        .build();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Search failed", e);
+            } finally {
+                if (searcher != null) {
+                    try {
+                        searcherManager.release(searcher);
+                    } catch (IOException e) {
+                        log.warn("Failed to release searcher: {}", e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (enabled) {
+            status.put("documents", writer.getDocStats().numDocs);
+            status.put("queued", queue.size());
+            status.put("rebuilding", rebuilding || rebuildRequested.get());
+            status.put("checkpoint", checkpoint > 0 ? new Date(checkpoint) : null);
+            status.put("lastCommit", lastCommit);
+            status.put("lastRebuild", lastRebuild);
+        }
+        return status;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Message search disabled");
+            return;
+        }
+        if (rebuildOnStartup || writer.getDocStats().numDocs == 0 && checkpoint == 0) {
+            log.info("Rebuilding search index from MongoDB");
+            rebuildRequested.set(true);
+        } else {
+            catchUpFrom.accumulateAndGet(Math.max(0, checkpoint - CHECKPOINT_OVERLAP_MILLIS), Math::min);
+        }
+        running = true;
+        indexer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        try {
+            indexer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            searcherManager.close();
+            if (indexer.isAlive() || rebuilding || rebuildRequested.get()) {
+                // Still busy, e.g. waiting for MongoDB, or a partial rebuild. Dropping uncommitted
+                // changes is safe: the next start catches up from the last committed checkpoint.
+                writer.rollback();
+                return;
+            }
+            List<Pending> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            apply(remaining);
+            commit();
+            writer.close();
+        } catch (IOException e) {
+            log.error("Failed to close search index: {}", e.getMessage());
+        }
+    }
+
+    private void open(Path indexDir) {
+        try {
+            Files.createDirectories(indexDir);
+            writer = new IndexWriter(FSDirectory.open(indexDir),
+                    new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(writer, null);
+            Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+            if (commitData != null) {
+                for (Map.Entry<String, String> entry : commitData) {
+                    if (CHECKPOINT.equals(entry.getKey())) {
+                        checkpoint = Long.parseLong(entry.getValue());
+                    }
+                }
+            }
+            log.info("Opened search index at {} ({} messages, checkpoint {})",
+                    indexDir, writer.getDocStats().numDocs, checkpoint > 0 ? new Date(checkpoint) : "none");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open search index at " + indexDir, e);
+        }
+    }
+
+    private Optional<Pending> pendingOf(ChatMessage message) {
+        if (!isIndexable(message.getContent(), message.getMessageType())
+                || message.getChatId() == null || message.getSenderId() == null || message.getRecipientId() == null) {
+            return Optional.empty();
+        }
+        Document document = new Document();
+        document.add(new StringField(FIELD_CHAT_ID, message.getChatId(), Field.Store.YES));
+        document.add(new StringField(FIELD_PARTICIPANT, message.getSenderId(), Field.Store.NO));
+        document.add(new StringField(FIELD_PARTICIPANT, message.getRecipientId(), Field.Store.NO));
+        document.add(new StoredField(FIELD_SENDER_ID, message.getSenderId()));
+        document.add(new StoredField(FIELD_RECIPIENT_ID, message.getRecipientId()));
+        return Optional.of(pendingOf(MessageSearchResult.Conversation.DIRECT, message.getId(), document,
+                message.getContent(), message.getMessageType(), message.getTimeStamp()));
+    }
+
+    private Optional<Pending> pendingOf(GroupMessage message) {
+        if (!isIndexable(message.getContent(), message.getMessageType())
+                || message.getGroupId() == null || message.getSenderId() == null) {
+            return Optional.empty();
+        }
+        Document document = new Document();
+        document.add(new StringField(FIELD_GROUP_ID, message.getGroupId(), Field.Store.YES));
+        document.add(new StoredField(FIELD_SENDER_ID, message.getSenderId()));
+        if (message.getSenderName() != null) {
+            document.add(new StoredField(FIELD_SENDER_NAME, message.getSenderName()));
+        }
+        return Optional.of(pendingOf(MessageSearchResult.Conversation.GROUP, message.getId(), document,
+                message.getContent(), message.getMessageType(), message.getTimestamp()));
+    }
+
+    private Pending pendingOf(MessageSearchResult.Conversation conversation, String messageId, Document document,
+                              String content, MessageType messageType, Date timestamp) {
+        long savedAt = timestamp != null ? timestamp.getTime() : System.currentTimeMillis();
+        String key = conversation.name() + ":" + messageId;
+        document.add(new StringField(FIELD_KEY, key, Field.Store.NO));
+        document.add(new StringField(FIELD_CONVERSATION, conversation.name(), Field.Store.YES));
+        document.add(new StoredField(FIELD_MESSAGE_ID, messageId));
+        document.add(new StoredField(FIELD_MESSAGE_TYPE, messageType != null ? messageType.name() : MessageType.TEXT.name()));
+        document.add(new NumericDocValuesField(FIELD_TIMESTAMP, savedAt));
+        document.add(new StoredField(FIELD_TIMESTAMP, savedAt));
+        document.add(new Field(FIELD_CONTENT, content, CONTENT_TYPE));
+        return new Pending(key, document, null, savedAt, System.nanoTime());
+    }
+
+    private boolean isIndexable(String content, MessageType messageType) {
+        return enabled && content != null && !content.isBlank() && messageType != MessageType.SYSTEM;
+    }
+
+    private void offer(Pending pending) {
+        if (!queue.offer(pending)) {
+            // Never block a send; the message is read back from MongoDB instead
+            droppedCounter.increment();
+            catchUpFrom.accumulateAndGet(pending.savedAt() - CHECKPOINT_OVERLAP_MILLIS, Math::min);
+        }
+    }
+
+    private org.apache.lucene.search.Query scopeOf(String requesterId) {
+        List<BytesRef> groupIds = groupRepository.findByMemberIdsContaining(requesterId).stream()
+                .map(Group::getId)
+                .map(BytesRef::new)
+                .toList();
+        BooleanQuery.Builder scope = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_PARTICIPANT, requesterId)), BooleanClause.Occur.SHOULD);
+        if (!groupIds.isEmpty()) {
+            scope.add(new TermInSetQuery(FIELD_GROUP_ID, groupIds), BooleanClause.Occur.SHOULD);
+        }
+        return scope.setMinimumNumberShouldMatch(1).build();
+    }
+
+    private MessageSearchResult toResult(Document document, String highlight) {
+        String messageType = document.get(FIELD_MESSAGE_TYPE);
+        return MessageSearchResult.builder()
+                .messageId(document.get(FIELD_MESSAGE_ID))
+                .conversation(MessageSearchResult.Conversation.valueOf(document.get(FIELD_CONVERSATION)))
+                .chatId(document.get(FIELD_CHAT_ID))
+                .groupId(document.get(FIELD_GROUP_ID))
+                .senderId(document.get(FIELD_SENDER_ID))
+                .senderName(document.get(FIELD_SENDER_NAME))
+                .recipientId(document.get(FIELD_RECIPIENT_ID))
+                .messageType(messageType != null ? MessageType.valueOf(messageType) : null)
+                .timestamp(new Date(document.getField(FIELD_TIMESTAMP).numericValue().longValue()))
+                .highlight(highlight)
+                .build();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        long lastCommitAt = System.nanoTime();
+        while (running) {
+            try {
+                if (rebuildRequested.getAndSet(false)) {
+                    rebuildFromMongo();
+                    continue;
+                }
+                long catchUp = catchUpFrom.getAndSet(Long.MAX_VALUE);
+                if (catchUp != Long.MAX_VALUE) {
+                    catchUp(catchUp);
+                    continue;
+                }
+
+                long idleSince = System.currentTimeMillis();
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Everything saved before this poll started has been applied
+                    if (catchUpFrom.get() == Long.MAX_VALUE) {
+                        checkpoint = idleSince;
+                    }
+                } else {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    apply(batch);
+                    searcherManager.maybeRefreshBlocking();
+                    long now = System.nanoTime();
+                    batch.forEach(pending -> lagTimer.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS));
+                }
+
+                if (System.nanoTime() - lastCommitAt >= commitInterval.toNanos()) {
+                    commit();
+                    lastCommitAt = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Search indexing failed, retrying: {}", e.getMessage());
+                // Re-read the failed batch from MongoDB
+                batch.forEach(pending -> catchUpFrom.accumulateAndGet(
+                        pending.savedAt() - CHECKPOINT_OVERLAP_MILLIS, Math::min));
+                sleepQuietly(Duration.ofSeconds(5));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Pending> batch) throws IOException {
+        for (Pending pending : batch) {
+            if (pending.delete() != null) {
+                writer.deleteDocuments(pending.delete());
+            } else {
+                writer.updateDocument(new Term(FIELD_KEY, pending.key()), pending.document());
+            }
+        }
+    }
+
+    private void commit() throws IOException {
+        long committedCheckpoint = checkpoint;
+        writer.setLiveCommitData(Map.of(CHECKPOINT, Long.toString(committedCheckpoint)).entrySet());
+        writer.commit();
+        lastCommit = new Date();
+    }
+
+    /**
+     * Replace the index contents with every message in MongoDB. The searcher is not refreshed
+     * until the end, so searches keep answering from the previous index meanwhile.
+     */
+    private void rebuildFromMongo() throws IOException {
+        rebuilding = true;
+        long startedAt = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start();
+        try {
+            // Messages arriving meanwhile wait in the queue and are applied afterwards
+            writer.deleteAll();
+            long indexed = reindexSince(null);
+            checkpoint = startedAt;
+            commit();
+            searcherManager.maybeRefreshBlocking();
+            lastRebuild = new Date();
+            log.info("Rebuilt search index with {} messages in {} ms", indexed, System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException e) {
+            // Keep the partial index uncommitted and out of searchers until a rebuild succeeds
+            rebuildRequested.set(true);
+            throw e;
+        } finally {
+            sample.stop(rebuildTimer);
+            rebuilding = false;
+        }
+    }
+
+    private void catchUp(long since) throws IOException {
+        long indexed = reindexSince(new Date(since));
+        searcherManager.maybeRefreshBlocking();
+        log.info("Caught up search index with {} messages saved since {}", indexed, new Date(since));
+    }
+
+    /**
+     * Read messages from MongoDB through streaming cursors and index them.
+     *
+     * @param since only read messages whose ObjectId was generated at or after this time, or null for all
+     * @return the number of messages indexed
+     */
+    private long reindexSince(Date since) {
+        Criteria criteria = Criteria.where("content").exists(true).ne("");
+        if (since != null) {
+            // ObjectIds start with their creation time, so the _id index serves this range
+            criteria.and("id").gte(new ObjectId(String.format("%08x", since.getTime() / 1000) + "0".repeat(16)));
+        }
+
+        Query chatQuery = new Query(criteria).cursorBatchSize(batchSize);
+        chatQuery.fields().include("id", "chatId", "senderId", "recipientId", "content", "timeStamp", "messageType");
+        Query groupQuery = new Query(criteria).cursorBatchSize(batchSize);
+        groupQuery.fields().include("id", "groupId", "senderId", "senderName", "content", "timestamp", "messageType");
+
+        long indexed = 0;
+        try (Stream<ChatMessage> messages = mongoTemplate.stream(chatQuery, ChatMessage.class)) {
+            indexed += write(messages.map(this::pendingOf).flatMap(Optional::stream));
+        }
+        try (Stream<GroupMessage> messages = mongoTemplate.stream(groupQuery, GroupMessage.class)) {
+            indexed += write(messages.map(this::pendingOf).flatMap(Optional::stream));
+        }
+        return indexed;
+    }
+
+    /**
+     * Write documents straight to the index, bypassing the queue.
+     */
+    private long write(Stream<Pending> documents) {
+        long count = 0;
+        for (Iterator<Pending> it = documents.iterator(); it.hasNext(); count++) {
+            Pending pending = it.next();
+            try {
+                writer.updateDocument(new Term(FIELD_KEY, pending.key()), pending.document());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return count;
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.project.ChatNexus.service;
+
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind pipeline for chat and group messages.
+ * <p>
+ * Callers assign the message ID up front and fan out immediately, while the
+ * document is queued and group-committed by a single writer thread with one
+ * {@code insert} per entity type every {@code flush-interval} or
+ * {@code batch-size} messages. After a batch is committed, each message's
+ * follow-up action (inbox or read status update) runs on the writer thread.
+ * <p>
+ * When the queue stays full for longer than {@code offer-timeout}, the caller
+ * writes the message synchronously instead, which slows producers down to the
+ * speed of the database. The queue is drained before shutdown.
+ */
+@Component
+@Slf4j
+public class MessageWriteBehind {
+
+    public enum Durability {
+        ACKNOWLEDGED(WriteConcern.W1),
+        JOURNALED(WriteConcern.JOURNALED),
+        MAJORITY(WriteConcern.MAJORITY);
+
+        private final WriteConcern writeConcern;
+
+        Durability(WriteConcern writeConcern) {
+            this.writeConcern = writeConcern;
+        }
+    }
+
+    private record Pending(Object entity, Runnable afterCommit, Runnable onFailure, long enqueuedAt) {
+    }
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final MongoTemplate writeTemplate;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final Timer flushTimer;
+    private final Timer commitLagTimer;
+    private final DistributionSummary batchSummary;
+    private final Counter syncFallbackCounter;
+    private final Counter failureCounter;
+
+    public MessageWriteBehind(MongoDatabaseFactory mongoDatabaseFactory,
+                              MongoTemplate mongoTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${messages.write-behind.enabled:false}") boolean enabled,
+                              @Value("${messages.write-behind.batch-size:256}") int batchSize,
+                              @Value("${messages.write-behind.flush-interval:5ms}") Duration flushInterval,
+                              @Value("${messages.write-behind.queue-capacity:10000}") int queueCapacity,
+                              @Value("${messages.write-behind.offer-timeout:50ms}") Duration offerTimeout,
+                              @Value("${messages.write-behind.durability:ACKNOWLEDGED}") Durability durability) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.writeTemplate = new MongoTemplate(mongoDatabaseFactory, mongoTemplate.getConverter());
+        this.writeTemplate.setWriteConcern(durability.writeConcern);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("chatnexus.writebehind.queue.depth", queue, Collection::size)
+                .description("Messages waiting to be persisted")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("chatnexus.writebehind.flush")
+                .description("Time spent committing one batch")
+                .register(meterRegistry);
+        this.commitLagTimer = Timer.builder("chatnexus.writebehind.lag")
+                .description("Time from enqueue until the message is committed")
+                .register(meterRegistry);
+        this.batchSummary = DistributionSummary.builder("chatnexus.writebehind.batch.size")
+                .description("Messages per committed batch")
+                .register(meterRegistry);
+        this.syncFallbackCounter = Counter.builder("chatnexus.writebehind.sync.fallback")
+                .description("Messages written synchronously because the queue was full or closed")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("chatnexus.writebehind.failures")
+                .description("Messages that could not be persisted")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::run, "message-write-behind");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            running = true;
+            writer.start();
+            log.info("Message write-behind enabled (batch {}, interval {}, capacity {}, durability {})",
+                    batchSize, flushInterval, queueCapacity, durability);
+        }
+    }
+
+    /**
+     * @return true if messages should be submitted here instead of saved directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Assign a new document ID, for messages that are fanned out before they are persisted.
+     *
+     * @return a new ObjectId in hex form
+     */
+    public String nextId() {
+        return new ObjectId().toHexString();
+    }
+
+    /**
+     * Queue an entity for persistence. The entity must already carry its ID.
+     * Falls back to a synchronous write if the queue does not accept it in time.
+     *
+     * @param entity      the document to insert
+     * @param afterCommit action to run once the entity is persisted
+     */
+    public void submit(Object entity, Runnable afterCommit) {
+        submit(entity, afterCommit, () -> { });
+    }
+
+    /**
+     * Queue an entity for persistence, with an action to undo side effects if it cannot be persisted.
+     *
+     * @param entity      the document to insert
+     * @param afterCommit action to run once the entity is persisted
+     * @param onFailure   action to run if the entity is given up on
+     */
+    public void submit(Object entity, Runnable afterCommit, Runnable onFailure) {
+        Pending pending = new Pending(entity, afterCommit, onFailure, System.nanoTime());
+        try {
+            if (running && queue.offer(pending, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        syncFallbackCounter.increment();
+        writeOne(pending);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Flushing {} queued messages on shutdown", remaining.size());
+            flush(remaining);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.error("Write-behind batch failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        Map<Class<?>, List<Pending>> byType = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byType.computeIfAbsent(pending.entity().getClass(), type -> new ArrayList<>()).add(pending);
+        }
+
+        long start = System.nanoTime();
+        byType.forEach((type, pendings) -> {
+            try {
+                writeTemplate.insert(pendings.stream().map(Pending::entity).toList(), type);
+                pendings.forEach(this::afterCommit);
+            } catch (Exception e) {
+                // The batch may be partially applied; saving by ID is idempotent
+                log.warn("Batch insert of {} {} failed, retrying one by one: {}",
+                        pendings.size(), type.getSimpleName(), e.getMessage());
+                pendings.forEach(this::writeOne);
+            }
+        });
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSummary.record(batch.size());
+        log.debug("Committed {} queued messages", batch.size());
+    }
+
+    private void writeOne(Pending pending) {
+        try {
+            writeTemplate.save(pending.entity());
+            afterCommit(pending);
+        } catch (Exception e) {
+            failureCounter.increment();
+            log.error("Failed to persist {}: {}", pending.entity().getClass().getSimpleName(), e.getMessage());
+            try {
+                pending.onFailure().run();
+            } catch (Exception compensation) {
+                log.error("Failure handling failed for {}: {}",
+                        pending.entity().getClass().getSimpleName(), compensation.getMessage());
+            }
+        }
+    }
+
+    private void afterCommit(Pending pending) {
+        commitLagTimer.record(System.nanoTime() - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        try {
+            pending.afterCommit().run();
+        } catch (Exception e) {
+            log.error("Post-commit update failed for {}: {}",
+                    pending.entity().getClass().getSimpleName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.ChatNexus.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the same payload to many user destinations, serializing it only once.
+ * The encoded {@code Message<byte[]>} is immutable and shared by every send.
+ */
+@Component
+@Slf4j
+public class NotificationFanout {
+
+    private static final String USER_DESTINATION_PREFIX = "/user/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PresenceRegistry presenceRegistry;
+    private final Timer serializationTimer;
+    private final Timer serializationSavedTimer;
+    private final DistributionSummary recipientsSummary;
+    private final Counter deliveriesCounter;
+
+    public NotificationFanout(SimpMessagingTemplate messagingTemplate,
+                              PresenceRegistry presenceRegistry,
+                              MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.presenceRegistry = presenceRegistry;
+        this.serializationTimer = Timer.builder("chatnexus.fanout.serialization")
+                .description("Time spent encoding a fanout payload once")
+                .register(meterRegistry);
+        this.serializationSavedTimer = Timer.builder("chatnexus.fanout.serialization.saved")
+                .description("Estimated encoding time avoided by reusing the payload for every recipient")
+                .register(meterRegistry);
+        this.recipientsSummary = DistributionSummary.builder("chatnexus.fanout.recipients")
+                .description("Online recipients per fanout")
+                .register(meterRegistry);
+        this.deliveriesCounter = Counter.builder("chatnexus.fanout.deliveries")
+                .description("Messages dispatched to user destinations by fanout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send a payload to the given destination of every online user.
+     *
+     * @param usernames   the recipients
+     * @param destination the user destination, e.g. {@code /queue/group-updates}
+     * @param payload     the payload, serialized once
+     * @return number of users the payload was sent to
+     */
+    public int sendToUsers(Collection<String> usernames, String destination, Object payload) {
+        Message<?> encoded = null;
+        long serializationNanos = 0;
+        int sent = 0;
+
+        for (String username : usernames) {
+            if (!presenceRegistry.isOnline(username)) {
+                continue;
+            }
+            if (encoded == null) {
+                long start = System.nanoTime();
+                encoded = encode(payload);
+                serializationNanos = System.nanoTime() - start;
+            }
+            messagingTemplate.send(USER_DESTINATION_PREFIX + username.replace("/", "%2F") + destination, encoded);
+            sent++;
+        }
+
+        if (sent > 0) {
+            serializationTimer.record(serializationNanos, TimeUnit.NANOSECONDS);
+            serializationSavedTimer.record(serializationNanos * (sent - 1), TimeUnit.NANOSECONDS);
+            recipientsSummary.record(sent);
+            deliveriesCounter.increment(sent);
+        }
+        log.debug("Fanned out payload to {} of {} users at {}", sent, usernames.size(), destination);
+        return sent;
+    }
+
+    private Message<?> encode(Object payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<?> encoded = messagingTemplate.getMessageConverter().toMessage(payload, accessor.getMessageHeaders());
+        if (encoded == null) {
+            throw new IllegalStateException("No converter for payload type " + payload.getClass().getName());
+        }
+        return encoded;
+    }
+}
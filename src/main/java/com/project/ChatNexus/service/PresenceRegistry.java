@@ -0,0 +1,99 @@
+package com.project.ChatNexus.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of connected WebSocket sessions per user.
+ * A user is online while at least one of their sessions is bound.
+ */
+@Component
+@Slf4j
+public class PresenceRegistry {
+
+    private final ConcurrentHashMap<String, String> sessionUsers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> userSessionCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Bind a WebSocket session to a user.
+     *
+     * @param sessionId the WebSocket session ID
+     * @param username  the user owning the session
+     * @return true if the user went from offline to online
+     */
+    public boolean bind(String sessionId, String username) {
+        String previous = sessionUsers.put(sessionId, username);
+        if (username.equals(previous)) {
+            return false;
+        }
+        if (previous != null) {
+            release(previous);
+        }
+        boolean cameOnline = userSessionCounts.merge(username, 1, Integer::sum) == 1;
+        log.trace("Session {} bound to {} (first session: {})", sessionId, username, cameOnline);
+        return cameOnline;
+    }
+
+    /**
+     * Unbind a WebSocket session.
+     *
+     * @param sessionId the WebSocket session ID
+     * @return the username if this was the user's last session
+     */
+    public Optional<String> unbind(String sessionId) {
+        String username = sessionUsers.remove(sessionId);
+        if (username == null) {
+            return Optional.empty();
+        }
+        boolean wentOffline = release(username);
+        log.trace("Session {} unbound from {} (last session: {})", sessionId, username, wentOffline);
+        return wentOffline ? Optional.of(username) : Optional.empty();
+    }
+
+    /**
+     * Check if a user has at least one bound session.
+     *
+     * @param username the username to check
+     * @return true if the user is online
+     */
+    public boolean isOnline(String username) {
+        return username != null && userSessionCounts.containsKey(username);
+    }
+
+    /**
+     * Get the user a session is bound to.
+     *
+     * @param sessionId the WebSocket session ID
+     * @return the username, or null if the session is not bound
+     */
+    public String getUsername(String sessionId) {
+        return sessionId != null ? sessionUsers.get(sessionId) : null;
+    }
+
+    /**
+     * Get the number of sessions currently bound to a user.
+     *
+     * @param username the username to check
+     * @return session count, 0 if offline
+     */
+    public int getSessionCount(String username) {
+        return userSessionCounts.getOrDefault(username, 0);
+    }
+
+    /**
+     * Get a snapshot of all online usernames.
+     *
+     * @return set of online usernames
+     */
+    public Set<String> getOnlineUsers() {
+        return Set.copyOf(userSessionCounts.keySet());
+    }
+
+    private boolean release(String username) {
+        return userSessionCounts.computeIfPresent(username, (key, count) -> count > 1 ? count - 1 : null) == null;
+    }
+}
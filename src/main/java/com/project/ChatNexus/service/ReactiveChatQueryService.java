@@ -0,0 +1,146 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.ChatContactResponse;
+import com.project.ChatNexus.dto.response.MessagePageResponse;
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.InboxEntry;
+import com.project.ChatNexus.model.MessageStatus;
+import com.project.ChatNexus.model.Status;
+import com.project.ChatNexus.model.User;
+import com.project.ChatNexus.repository.ReactiveChatMessageRepository;
+import com.project.ChatNexus.repository.ReactiveInboxEntryRepository;
+import com.project.ChatNexus.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+/**
+ * Non-blocking reads for the chat history, contacts and undelivered message endpoints.
+ * No request thread is parked while these queries are in flight. Resolving a chat ID
+ * can query the blocking repository until legacy IDs are loaded, so it runs on the
+ * bounded elastic scheduler.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveChatQueryService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveChatMessageRepository chatMessageRepository;
+    private final ReactiveInboxEntryRepository inboxEntryRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ChatRoomService chatRoomService;
+    private final UserProfileCache userProfileCache;
+    private final PresenceRegistry presenceRegistry;
+
+    /**
+     * Find all messages between two users.
+     */
+    public Mono<List<ChatMessage>> findChatMessages(String senderId, String recipientId) {
+        return Mono.fromCallable(() -> chatRoomService.getChatId(senderId, recipientId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(chatId -> chatMessageRepository.findByChatId(chatId).collectList());
+    }
+
+    /**
+     * Find one page of messages between two users using a keyset cursor.
+     */
+    public Mono<MessagePageResponse<ChatMessage>> findChatMessagesPage(String senderId, String recipientId,
+                                                                       String before, String after, Integer limit) {
+        return Mono.fromCallable(() -> {
+            MessageCursor beforeCursor = MessageCursor.decode(before);
+            MessageCursor afterCursor = MessageCursor.decode(after);
+            int pageSize = MessageCursor.pageSize(limit);
+            String chatId = chatRoomService.getChatId(senderId, recipientId);
+            return new PageQuery(MessageCursor.pageQuery(Criteria.where("chatId").is(chatId),
+                    "timeStamp", beforeCursor, afterCursor, pageSize), pageSize, afterCursor != null);
+        }).subscribeOn(Schedulers.boundedElastic())
+                .flatMap(pageQuery -> reactiveMongoTemplate.find(pageQuery.query(), ChatMessage.class)
+                .collectList()
+                .map(rows -> MessageCursor.toPage(rows, pageQuery.pageSize(), pageQuery.ascending(),
+                        msg -> new MessageCursor(msg.getTimeStamp(), msg.getId()))));
+    }
+
+    /**
+     * Find undelivered messages for a user and mark them delivered in one bulk update.
+     */
+    public Mono<List<ChatMessage>> takeUndeliveredMessages(String recipientId) {
+        return chatMessageRepository.findByRecipientIdAndStatus(recipientId, MessageStatus.SENT)
+                .collectList()
+                .flatMap(messages -> {
+                    if (messages.isEmpty()) {
+                        return Mono.just(messages);
+                    }
+                    List<String> ids = messages.stream().map(ChatMessage::getId).toList();
+                    return reactiveMongoTemplate.updateMulti(
+                                    new Query(Criteria.where("id").in(ids).and("status").is(MessageStatus.SENT)),
+                                    new Update().set("status", MessageStatus.DELIVERED),
+                                    ChatMessage.class)
+                            .map(result -> {
+                                messages.forEach(msg -> msg.setStatus(MessageStatus.DELIVERED));
+                                log.info("Marked {} messages as DELIVERED", result.getModifiedCount());
+                                return messages;
+                            });
+                });
+    }
+
+    /**
+     * Get chat contacts from the materialized inbox, joined with partner profiles.
+     * Cached profiles are used as-is; the rest are loaded in one query.
+     */
+    public Mono<List<ChatContactResponse>> getChatContacts(String userId) {
+        return inboxEntryRepository.findByUserIdOrderByLastMessageTimeDesc(userId)
+                .collectList()
+                .flatMap(entries -> findProfiles(entries.stream().map(InboxEntry::getPartnerId).toList())
+                        .map(partners -> toContacts(entries, partners)));
+    }
+
+    private Mono<Map<String, User>> findProfiles(List<String> usernames) {
+        Map<String, User> cached = userProfileCache.getAllPresent(usernames);
+        List<String> missing = usernames.stream().filter(name -> !cached.containsKey(name)).toList();
+        if (missing.isEmpty()) {
+            return Mono.just(cached);
+        }
+        return userRepository.findByUsernameIn(missing)
+                .doOnNext(userProfileCache::put)
+                .collectList()
+                .map(loaded -> {
+                    Map<String, User> profiles = new HashMap<>(cached);
+                    loaded.forEach(user -> profiles.put(user.getUsername(), user));
+                    return profiles;
+                });
+    }
+
+    private List<ChatContactResponse> toContacts(List<InboxEntry> entries, Map<String, User> partners) {
+        List<ChatContactResponse> contacts = new ArrayList<>();
+        for (InboxEntry entry : entries) {
+            User partner = partners.get(entry.getPartnerId());
+            if (partner == null) {
+                log.warn("Partner user not found: {}", entry.getPartnerId());
+                continue;
+            }
+            contacts.add(ChatContactResponse.builder()
+                    .username(partner.getUsername())
+                    .fullName(partner.getFullName())
+                    .status(presenceRegistry.isOnline(partner.getUsername()) ? Status.ONLINE : Status.OFFLINE)
+                    .lastMessage(entry.getLastMessage())
+                    .lastMessageType(entry.getLastMessageType() != null ? entry.getLastMessageType().name() : null)
+                    .lastMessageTime(entry.getLastMessageTime())
+                    .lastMessageSenderId(entry.getLastMessageSenderId())
+                    .unreadCount(entry.getUnreadCount())
+                    .build());
+        }
+        return contacts;
+    }
+
+    private record PageQuery(Query query, int pageSize, boolean ascending) {
+    }
+}
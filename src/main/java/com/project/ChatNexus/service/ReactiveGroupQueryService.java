@@ -0,0 +1,112 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.GroupResponse;
+import com.project.ChatNexus.dto.response.MessagePageResponse;
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.project.ChatNexus.repository.ReactiveGroupMessageRepository;
+import com.project.ChatNexus.repository.ReactiveGroupReadStatusRepository;
+import com.project.ChatNexus.repository.ReactiveGroupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking reads for the groups list and group history endpoints.
+ * Independent queries of one request are issued concurrently; message reads
+ * wait for the membership check.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveGroupQueryService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveGroupRepository groupRepository;
+    private final ReactiveGroupReadStatusRepository groupReadStatusRepository;
+    private final ReactiveGroupMessageRepository groupMessageRepository;
+    private final GroupService groupService;
+
+    /**
+     * Get the groups of a user, most recently active first, with unread counts.
+     * Groups and read positions are fetched concurrently.
+     */
+    public Mono<List<GroupResponse>> getGroupsForUser(String userId) {
+        Mono<List<Group>> groups = groupRepository.findByMemberIdsContainingOrderByLastMessageTimeDesc(userId)
+                .collectList();
+        Mono<Map<String, GroupReadStatus>> readStatuses = groupReadStatusRepository.findByUserId(userId)
+                .collect(HashMap::new, (statuses, status) -> statuses.putIfAbsent(status.getGroupId(), status));
+
+        return Mono.zip(groups, readStatuses)
+                .map(tuple -> tuple.getT1().stream()
+                        .map(group -> groupService.mapToGroupResponseWithUnread(group, tuple.getT2().get(group.getId())))
+                        .toList());
+    }
+
+    /**
+     * Find all messages in a group once membership is confirmed.
+     */
+    public Mono<List<GroupMessage>> findGroupMessages(String groupId, String requesterId) {
+        return requireMembership(groupId, requesterId)
+                .then(groupMessageRepository.findByGroupIdOrderByTimestampAsc(groupId).collectList());
+    }
+
+    /**
+     * Find one page of group messages once membership is confirmed.
+     */
+    public Mono<MessagePageResponse<GroupMessage>> findGroupMessagesPage(String groupId, String requesterId,
+                                                                         String before, String after, Integer limit) {
+        return Mono.defer(() -> {
+            MessageCursor beforeCursor = MessageCursor.decode(before);
+            MessageCursor afterCursor = MessageCursor.decode(after);
+            int pageSize = MessageCursor.pageSize(limit);
+            Query query = MessageCursor.pageQuery(Criteria.where("groupId").is(groupId),
+                    "timestamp", beforeCursor, afterCursor, pageSize);
+
+            // Messages are only read after the check, so non-members never trigger the query
+            return requireMembership(groupId, requesterId)
+                    .then(reactiveMongoTemplate.find(query, GroupMessage.class).collectList())
+                    .map(rows -> MessageCursor.toPage(rows, pageSize, afterCursor != null,
+                            msg -> new MessageCursor(msg.getTimestamp(), msg.getId())));
+        });
+    }
+
+    /**
+     * Advance the user's read position to the group's latest message.
+     */
+    public Mono<Void> markGroupAsRead(String groupId, String userId) {
+        Query seqQuery = new Query(Criteria.where("id").is(groupId));
+        seqQuery.fields().include("messageSeq");
+        return reactiveMongoTemplate.findOne(seqQuery, Group.class)
+                .map(Group::getMessageSeq)
+                .defaultIfEmpty(0L)
+                .flatMap(messageSeq -> reactiveMongoTemplate.upsert(
+                        new Query(Criteria.where("userId").is(userId).and("groupId").is(groupId)),
+                        new Update().max("lastReadSeq", messageSeq).set("ownMessagesSinceRead", 0)
+                                .set("lastReadTimestamp", new Date()),
+                        GroupReadStatus.class))
+                .doOnSuccess(result -> log.debug("Marked group {} as read for user {}", groupId, userId))
+                .then();
+    }
+
+    private Mono<Boolean> requireMembership(String groupId, String userId) {
+        return reactiveMongoTemplate.exists(
+                        new Query(Criteria.where("id").is(groupId).and("memberIds").is(userId)), Group.class)
+                .flatMap(member -> member
+                        ? Mono.just(true)
+                        : groupRepository.existsById(groupId).flatMap(exists -> Mono.error(exists
+                                ? new RuntimeException("User is not a member of this group")
+                                : new RuntimeException("Group not found"))));
+    }
+}
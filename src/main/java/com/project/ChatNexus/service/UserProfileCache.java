@@ -0,0 +1,105 @@
+package com.project.ChatNexus.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.ChatNexus.model.User;
+import com.project.ChatNexus.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of user documents in front of {@link UserRepository}.
+ * Entries expire after a fixed TTL and are invalidated whenever the user is saved.
+ * Unknown usernames are not cached.
+ */
+@Component
+@Slf4j
+public class UserProfileCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+
+    public UserProfileCache(UserRepository userRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${users.cache.max-size:10000}") long maxSize,
+                            @Value("${users.cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+        Gauge.builder("chatnexus.users.cache.hit-ratio", cache, c -> c.stats().hitRate())
+                .description("Fraction of user lookups served from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find a user by username, loading it from the repository on a miss.
+     *
+     * @param username the username to find
+     * @return optional containing the user if found
+     */
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(username, key -> userRepository.findByUsername(key).orElse(null)));
+    }
+
+    /**
+     * Find users by username, loading all misses in a single query.
+     *
+     * @param usernames the usernames to find
+     * @return map of username to user for the users that exist
+     */
+    public Map<String, User> findByUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Map.of();
+        }
+        return cache.getAll(new LinkedHashSet<>(usernames), missing -> userRepository.findByUsernameIn(Set.copyOf(missing))
+                .stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity())));
+    }
+
+    /**
+     * Get the cached users among the given usernames, without loading misses.
+     *
+     * @param usernames the usernames to look up
+     * @return map of username to cached user
+     */
+    public Map<String, User> getAllPresent(Collection<String> usernames) {
+        return cache.getAllPresent(usernames);
+    }
+
+    /**
+     * Cache a user loaded elsewhere, e.g. by a reactive query.
+     *
+     * @param user the user to cache
+     */
+    public void put(User user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    /**
+     * Drop a user from the cache after it changed.
+     *
+     * @param username the user to invalidate
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+            log.trace("Invalidated cached user {}", username);
+        }
+    }
+}
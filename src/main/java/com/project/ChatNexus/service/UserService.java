@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,41 +21,59 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PresenceRegistry presenceRegistry;
+    private final UserProfileCache userProfileCache;
 
     /**
-     * Save or update user status to ONLINE.
+     * Bind a WebSocket session to a user and mark them ONLINE
+     * if this is their first active session.
      *
-     * @param user the user to save/update
+     * @param user      the connecting user
+     * @param sessionId the WebSocket session ID
      */
-    public void saveUser(User user) {
-        log.debug("Setting user {} to ONLINE", user.getUsername());
-        var storedUser = userRepository.findByUsername(user.getUsername())
-                .orElse(null);
-
-        if (storedUser != null) {
-            storedUser.setStatus(Status.ONLINE);
-            storedUser.setLastSeen(LocalDateTime.now());
-            userRepository.save(storedUser);
-            log.info("User {} is now ONLINE", user.getUsername());
-        }
+    public void saveUser(User user, String sessionId) {
+        connectSession(user.getUsername(), sessionId);
+        userProfileCache.invalidate(user.getUsername());
+    }
+
+    /**
+     * Release a user's WebSocket session and mark them OFFLINE
+     * if it was their last active session.
+     *
+     * @param user      the disconnecting user
+     * @param sessionId the WebSocket session ID
+     */
+    public void disconnect(User user, String sessionId) {
+        log.debug("Releasing session {} of user {}", sessionId, user.getUsername());
+        disconnectSession(sessionId);
+        userProfileCache.invalidate(user.getUsername());
     }
 
     /**
-     * Set user status to OFFLINE.
+     * Bind a WebSocket session to a user.
      *
-     * @param user the user to disconnect
+     * @param username  the user owning the session
+     * @param sessionId the WebSocket session ID
+     * @return the stored user if they just came ONLINE
      */
-    public void disconnect(User user) {
-        log.debug("Setting user {} to OFFLINE", user.getUsername());
-        var storedUser = userRepository.findByUsername(user.getUsername())
-                .orElse(null);
-
-        if (storedUser != null) {
-            storedUser.setStatus(Status.OFFLINE);
-            storedUser.setLastSeen(LocalDateTime.now());
-            userRepository.save(storedUser);
-            log.info("User {} is now OFFLINE", user.getUsername());
+    public Optional<User> connectSession(String username, String sessionId) {
+        if (!presenceRegistry.bind(sessionId, username)) {
+            log.debug("User {} already online, {} active sessions",
+                    username, presenceRegistry.getSessionCount(username));
+            return Optional.empty();
         }
+        return updateStatus(username, Status.ONLINE);
+    }
+
+    /**
+     * Release a WebSocket session.
+     *
+     * @param sessionId the WebSocket session ID
+     * @return the stored user if they just went OFFLINE
+     */
+    public Optional<User> disconnectSession(String sessionId) {
+        return presenceRegistry.unbind(sessionId)
+                .flatMap(username -> updateStatus(username, Status.OFFLINE));
     }
 
     /**
@@ -64,7 +83,7 @@ public class UserService {
      */
     public List<User> findConnectedUsers() {
         log.debug("Fetching all connected users");
-        List<User> users = userRepository.findAllByStatus(Status.ONLINE);
+        List<User> users = userRepository.findByUsernameIn(presenceRegistry.getOnlineUsers());
         log.debug("Found {} connected users", users.size());
         return users;
     }
@@ -87,7 +106,18 @@ public class UserService {
      */
     public Optional<User> findByUsername(String username) {
         log.debug("Looking up user: {}", username);
-        return userRepository.findByUsername(username);
+        return userProfileCache.findByUsername(username);
+    }
+
+    /**
+     * Find users by a set of usernames, loading cache misses in a single query.
+     *
+     * @param usernames the usernames to find
+     * @return list of matching users
+     */
+    public List<User> findByUsernames(Collection<String> usernames) {
+        log.debug("Looking up {} users", usernames.size());
+        return List.copyOf(userProfileCache.findByUsernames(usernames).values());
     }
 
     /**
@@ -110,9 +140,7 @@ public class UserService {
      * @return true if user is online, false otherwise
      */
     public boolean isUserOnline(String username) {
-        boolean online = userRepository.findByUsername(username)
-                .map(user -> user.getStatus() == Status.ONLINE)
-                .orElse(false);
+        boolean online = presenceRegistry.isOnline(username);
         log.trace("User {} online status: {}", username, online);
         return online;
     }
@@ -136,7 +164,23 @@ public class UserService {
     public User save(User user) {
         log.debug("Saving user: {}", user.getUsername());
         User savedUser = userRepository.save(user);
+        userProfileCache.invalidate(savedUser.getUsername());
         log.info("User saved: {}", savedUser.getUsername());
         return savedUser;
     }
+
+    /**
+     * Persist a presence transition.
+     */
+    private Optional<User> updateStatus(String username, Status status) {
+        return userRepository.findByUsername(username)
+                .map(storedUser -> {
+                    storedUser.setStatus(status);
+                    storedUser.setLastSeen(LocalDateTime.now());
+                    User savedUser = userRepository.save(storedUser);
+                    userProfileCache.invalidate(username);
+                    log.info("User {} is now {}", username, status);
+                    return savedUser;
+                });
+    }
 }
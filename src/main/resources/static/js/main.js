@@ -204,7 +204,7 @@ document.addEventListener('DOMContentLoaded', function() {
         stompClient = Stomp.over(socket);
         stompClient.debug = null; // Disable debug logs
 
-        stompClient.connect({}, onConnected, onError);
+        stompClient.connect({'Authorization': `Bearer ${token}`}, onConnected, onError);
 
         // Setup search functionality
         setupSearch();
@@ -348,6 +348,10 @@ document.addEventListener('DOMContentLoaded', function() {
         // Subscribe to public topic (user online/offline notifications)
         stompClient.subscribe(`/topic/public`, onPublicMessageReceived);
 
+        // Subscribe to personal group notifications, then to the topics of each group
+        stompClient.subscribe(`/user/${username}/queue/group-updates`, onGroupNotificationReceived);
+        subscribeToGroups();
+
         // Register the connected user (set status to ONLINE)
         stompClient.send("/app/user.addUser",
             {},
@@ -485,6 +489,78 @@ document.addEventListener('DOMContentLoaded', function() {
         tooltipElement.innerHTML = tooltipContent;
     }
 
+    // ===========================
+    // Group Topics
+    // ===========================
+    // Group messages arrive on /topic/group.{id} and membership or detail changes on
+    // /topic/group.{id}.updates. Both are re-dispatched as DOM events for the group UI.
+    const groupSubscriptions = {};
+
+    async function subscribeToGroups() {
+        try {
+            const response = await fetch(buildApiUrl(`/groups/user/${encodeURIComponent(username)}`), {
+                headers: {
+                    'Authorization': `Bearer ${token}`
+                }
+            });
+            if (response.ok) {
+                const groups = await response.json();
+                groups.forEach(group => subscribeToGroup(group.id));
+            }
+        } catch (error) {
+            console.error('Error fetching groups:', error);
+        }
+    }
+
+    function subscribeToGroup(groupId) {
+        if (!groupId || groupSubscriptions[groupId]) {
+            return;
+        }
+        groupSubscriptions[groupId] = [
+            stompClient.subscribe(`/topic/group.${groupId}`, onGroupMessageReceived),
+            stompClient.subscribe(`/topic/group.${groupId}.updates`, onGroupUpdateReceived)
+        ];
+    }
+
+    function unsubscribeFromGroup(groupId) {
+        const subscriptions = groupSubscriptions[groupId];
+        if (subscriptions) {
+            subscriptions.forEach(subscription => subscription.unsubscribe());
+            delete groupSubscriptions[groupId];
+        }
+    }
+
+    // Personal notifications: groups this user joined or was removed from
+    function onGroupNotificationReceived(payload) {
+        const update = JSON.parse(payload.body);
+        switch (update.type) {
+            case 'GROUP_CREATED':
+            case 'ADDED_TO_GROUP':
+                subscribeToGroup(update.group.id);
+                break;
+            case 'REMOVED_FROM_GROUP':
+                unsubscribeFromGroup(update.groupId);
+                break;
+            default:
+                // Other updates also arrive on the group topic while the server keeps the legacy queue
+                return;
+        }
+        document.dispatchEvent(new CustomEvent('chatnexus:group-update', {detail: update}));
+    }
+
+    function onGroupUpdateReceived(payload) {
+        const update = JSON.parse(payload.body);
+        if (update.type === 'GROUP_DELETED') {
+            unsubscribeFromGroup(update.groupId);
+        }
+        document.dispatchEvent(new CustomEvent('chatnexus:group-update', {detail: update}));
+    }
+
+    function onGroupMessageReceived(payload) {
+        const message = JSON.parse(payload.body);
+        document.dispatchEvent(new CustomEvent('chatnexus:group-message', {detail: message}));
+    }
+
     async function fetchUndeliveredMessages() {
         try {
             const response = await fetch(buildApiUrl(`/messages/undelivered/${username}`), {
@@ -861,7 +937,7 @@ document.addEventListener('DOMContentLoaded', function() {
                     'Authorization': `Bearer ${token}`
                 }
             });
-            const userChat = await userChatResponse.json();
+            const userChat = (await userChatResponse.json()).messages;
             chatArea.innerHTML = '';
             messageElements = {}; // Clear stored message elements
             messageTimestamps = {}; // Clear stored timestamps
@@ -3,7 +3,7 @@ package com.project.ChatNexus;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "groups.backfill-on-startup=false")
 class ChatNexusApplicationTests {
 
 	@Test
@@ -0,0 +1,105 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.service.GroupService;
+import com.project.ChatNexus.service.GroupSubscriptionRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupSubscriptionInterceptorTest {
+
+	@Mock
+	private GroupService groupService;
+	@Mock
+	private GroupSubscriptionRegistry groupSubscriptionRegistry;
+	@Mock
+	private MessageChannel channel;
+
+	@InjectMocks
+	private GroupSubscriptionInterceptor interceptor;
+
+	private Message<byte[]> frame(StompCommand command, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		accessor.setDestination(destination);
+		accessor.setSessionId("s1");
+		accessor.setSubscriptionId("sub-1");
+		accessor.setUser(new UsernamePasswordAuthenticationToken("alice", null));
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"/topic/**", "/topic/*", "/topic/group.g1.*", "/topic/group.*", "/topic/group.{id}",
+			"/topic/group.g?", "/user/**"})
+	void rejectsPatternSubscriptions(String destination) {
+		assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, destination), channel))
+				.isInstanceOf(AccessDeniedException.class);
+		verifyNoInteractions(groupService, groupSubscriptionRegistry);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"/topic/other", "/topic/group.g1.other", "/topic/group."})
+	void rejectsUnknownTopics(String destination) {
+		assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, destination), channel))
+				.isInstanceOf(AccessDeniedException.class);
+	}
+
+	@Test
+	void allowsMembersToSubscribeToGroupTopics() {
+		when(groupService.isMember("g1", "alice")).thenReturn(true);
+
+		assertThatCode(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/group.g1"), channel))
+				.doesNotThrowAnyException();
+		assertThatCode(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/group.g1.updates"), channel))
+				.doesNotThrowAnyException();
+		verify(groupSubscriptionRegistry, times(2)).add("g1", "s1", "sub-1", "alice");
+	}
+
+	@Test
+	void rejectsNonMembers() {
+		when(groupService.isMember("g1", "alice")).thenReturn(false);
+
+		assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/group.g1"), channel))
+				.isInstanceOf(AccessDeniedException.class);
+		verify(groupSubscriptionRegistry, never()).add(any(), any(), any(), any());
+	}
+
+	@Test
+	void allowsPublicTopicAndUserQueues() {
+		assertThatCode(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/public"), channel))
+				.doesNotThrowAnyException();
+		assertThatCode(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/messages"), channel))
+				.doesNotThrowAnyException();
+		verifyNoInteractions(groupService);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"/topic/group.g1", "/topic/public", "/user/bob/queue/messages"})
+	void rejectsPublishingToBrokerDestinations(String destination) {
+		assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, destination), channel))
+				.isInstanceOf(AccessDeniedException.class);
+	}
+
+	@Test
+	void allowsApplicationDestinations() {
+		assertThatCode(() -> interceptor.preSend(frame(StompCommand.SEND, "/app/group.chat"), channel))
+				.doesNotThrowAnyException();
+	}
+}
@@ -0,0 +1,90 @@
+package com.project.ChatNexus.config;
+
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.project.ChatNexus.repository.GroupMessageRepository;
+import com.project.ChatNexus.repository.GroupReadStatusRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupSummaryBackfillTest {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private GroupMessageRepository groupMessageRepository;
+
+	@Mock
+	private GroupReadStatusRepository groupReadStatusRepository;
+
+	@InjectMocks
+	private GroupSummaryBackfill backfill;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(backfill, "backfillOnStartup", true);
+	}
+
+	@Test
+	void backfillsSequenceAndReadPositionOfGroupsWithoutOne() {
+		Date lastRead = new Date();
+		when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenReturn(List.of(Group.builder().id("g1").build()));
+		when(groupMessageRepository.countByGroupId("g1")).thenReturn(5L);
+		when(groupReadStatusRepository.findByGroupId("g1")).thenReturn(List.of(
+				GroupReadStatus.builder().id("r1").userId("alice").groupId("g1").lastReadTimestamp(lastRead).build()));
+		when(groupMessageRepository.countByGroupIdAndTimestampAfterAndSenderIdNot("g1", lastRead, "alice")).thenReturn(2L);
+		when(groupMessageRepository.findTopByGroupIdOrderByTimestampDesc("g1")).thenReturn(Optional.empty());
+
+		backfill.afterSingletonsInstantiated();
+
+		ArgumentCaptor<Update> readUpdate = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), readUpdate.capture(), eq(GroupReadStatus.class));
+		assertThat(readUpdate.getValue().getUpdateObject().get("$max", Document.class).get("lastReadSeq")).isEqualTo(3L);
+
+		ArgumentCaptor<Query> groupQuery = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> groupUpdate = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(groupQuery.capture(), groupUpdate.capture(), eq(Group.class));
+		assertThat(groupQuery.getValue().getQueryObject().get("messageSeq", Document.class).get("$exists")).isEqualTo(false);
+		assertThat(groupUpdate.getValue().getUpdateObject().get("$set", Document.class).get("messageSeq")).isEqualTo(5L);
+	}
+
+	@Test
+	void failedBackfillAbortsStartup() {
+		when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenThrow(new IllegalStateException("mongo down"));
+
+		assertThatThrownBy(() -> backfill.afterSingletonsInstantiated())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("mongo down");
+	}
+
+	@Test
+	void doesNothingWhenDisabled() {
+		ReflectionTestUtils.setField(backfill, "backfillOnStartup", false);
+
+		backfill.afterSingletonsInstantiated();
+
+		verifyNoInteractions(mongoTemplate, groupMessageRepository, groupReadStatusRepository);
+	}
+}
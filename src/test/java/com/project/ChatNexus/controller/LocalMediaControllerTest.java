@@ -0,0 +1,48 @@
+package com.project.ChatNexus.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalMediaControllerTest {
+
+	private static final long SIZE = 1000;
+
+	@Test
+	void closedRangeEndIsExclusive() {
+		assertThat(LocalMediaController.parseRange("bytes=0-499", SIZE)).containsExactly(0, 500);
+		assertThat(LocalMediaController.parseRange("bytes= 10 - 10", SIZE)).containsExactly(10, 11);
+	}
+
+	@Test
+	void openRangeRunsToTheEndOfTheFile() {
+		assertThat(LocalMediaController.parseRange("bytes=900-", SIZE)).containsExactly(900, 1000);
+	}
+
+	@Test
+	void endPastTheFileIsClamped() {
+		assertThat(LocalMediaController.parseRange("bytes=500-5000", SIZE)).containsExactly(500, 1000);
+	}
+
+	@Test
+	void suffixRangeServesTheLastBytes() {
+		assertThat(LocalMediaController.parseRange("bytes=-100", SIZE)).containsExactly(900, 1000);
+		assertThat(LocalMediaController.parseRange("bytes=-5000", SIZE)).containsExactly(0, 1000);
+	}
+
+	@Test
+	void unsatisfiableRangesAreRejected() {
+		assertThat(LocalMediaController.parseRange("bytes=1000-", SIZE)).isNull();
+		assertThat(LocalMediaController.parseRange("bytes=500-100", SIZE)).isNull();
+		assertThat(LocalMediaController.parseRange("bytes=-0", SIZE)).isNull();
+		assertThat(LocalMediaController.parseRange("bytes=-10", 0)).isNull();
+	}
+
+	@Test
+	void unsupportedRangesServeTheWholeFile() {
+		assertThat(LocalMediaController.parseRange("items=0-10", SIZE)).isEmpty();
+		assertThat(LocalMediaController.parseRange("bytes=0-10,20-30", SIZE)).isEmpty();
+		assertThat(LocalMediaController.parseRange("bytes=10", SIZE)).isEmpty();
+		assertThat(LocalMediaController.parseRange("bytes=a-b", SIZE)).isEmpty();
+	}
+}
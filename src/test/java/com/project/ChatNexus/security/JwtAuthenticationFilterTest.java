@@ -0,0 +1,97 @@
+package com.project.ChatNexus.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+	@Mock
+	private JwtService jwtService;
+
+	@Mock
+	private UserDetailsService userDetailsService;
+
+	private final TokenRevocationRegistry tokenRevocationRegistry = new TokenRevocationRegistry(86_400_000);
+
+	private JwtAuthenticationFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRevocationRegistry);
+		ReflectionTestUtils.setField(filter, "statelessPrincipal", true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private void givenTokenIssuedSecondsAgo(long seconds) {
+		Claims claims = Jwts.claims()
+				.subject("alice")
+				.issuedAt(new Date((System.currentTimeMillis() / 1000 - seconds) * 1000))
+				.build();
+		when(jwtService.verifyToken("token")).thenReturn(claims);
+		lenient().when(jwtService.extractAuthorities(claims)).thenReturn(List.of(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+	private Authentication filter(String path) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.setServletPath(path);
+		request.addHeader("Authorization", "Bearer token");
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	@Test
+	void logoutIsAuthenticatedByTheCallersToken() throws Exception {
+		givenTokenIssuedSecondsAgo(10);
+
+		Authentication authentication = filter("/api/auth/logout");
+
+		assertThat(authentication).isNotNull();
+		assertThat(authentication.getName()).isEqualTo("alice");
+	}
+
+	@Test
+	void tokenIssuedBeforeLogoutIsRejected() throws Exception {
+		givenTokenIssuedSecondsAgo(10);
+		assertThat(filter("/api/users")).isNotNull();
+
+		tokenRevocationRegistry.revokeAll(filter("/api/auth/logout").getName());
+
+		assertThat(filter("/api/users")).isNull();
+		assertThat(filter("/api/auth/logout")).isNull();
+	}
+
+	@Test
+	void loginAndRegisterSkipTokenVerification() throws Exception {
+		assertThat(filter("/api/auth/login")).isNull();
+		assertThat(filter("/api/auth/register")).isNull();
+
+		verify(jwtService, never()).verifyToken(anyString());
+	}
+}
@@ -0,0 +1,50 @@
+package com.project.ChatNexus.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationRegistryTest {
+
+	private final TokenRevocationRegistry registry = new TokenRevocationRegistry(86_400_000);
+
+	private static Date secondsAgo(long seconds) {
+		// Tokens carry iat with second precision
+		return new Date((System.currentTimeMillis() / 1000 - seconds) * 1000);
+	}
+
+	@Test
+	void tokensOfOtherUsersAreNotRevoked() {
+		registry.revokeAll("alice");
+
+		assertThat(registry.isRevoked("bob", secondsAgo(10))).isFalse();
+	}
+
+	@Test
+	void revokesTokensIssuedBeforeLogout() {
+		registry.revokeAll("alice");
+
+		assertThat(registry.isRevoked("alice", secondsAgo(10))).isTrue();
+		assertThat(registry.isRevoked("alice", null)).isTrue();
+	}
+
+	@Test
+	void acceptsTokenIssuedInTheSameSecondAfterLogout() {
+		registry.revokeAll("alice");
+
+		assertThat(registry.isRevoked("alice", secondsAgo(0))).isFalse();
+	}
+
+	@Test
+	void revocationsAreDroppedOnceTheirTokensExpired() throws InterruptedException {
+		TokenRevocationRegistry shortLived = new TokenRevocationRegistry(1);
+		shortLived.revokeAll("alice");
+		Thread.sleep(5);
+
+		shortLived.pruneExpired();
+
+		assertThat(shortLived.isRevoked("alice", null)).isFalse();
+	}
+}
@@ -0,0 +1,33 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.request.RegisterRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+	@Mock
+	private UserService userService;
+
+	@InjectMocks
+	private AuthService authService;
+
+	@Test
+	void systemSenderNameCannotBeRegistered() {
+		for (String username : new String[]{"SYSTEM", "system"}) {
+			RegisterRequest request = RegisterRequest.builder().username(username).fullName("Nobody").password("secret1").build();
+
+			assertThatThrownBy(() -> authService.register(request)).hasMessage("Username is reserved");
+		}
+		verify(userService, never()).save(any());
+	}
+}
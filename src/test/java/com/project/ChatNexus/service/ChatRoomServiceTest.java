@@ -0,0 +1,60 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.ChatRoom;
+import com.project.ChatNexus.repository.ChatRoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatRoomServiceTest {
+
+	@Mock
+	private ChatRoomRepository chatRoomRepository;
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private ChatRoomService chatRoomService;
+
+	@Test
+	void canonicalChatIdIgnoresDirectionAndEscapesSeparators() {
+		assertThat(ChatRoomService.canonicalChatId("bob", "alice"))
+				.isEqualTo(ChatRoomService.canonicalChatId("alice", "bob"))
+				.isEqualTo("alice_bob");
+		assertThat(ChatRoomService.canonicalChatId("a_b", "c"))
+				.isNotEqualTo(ChatRoomService.canonicalChatId("a", "b_c"));
+	}
+
+	@Test
+	void upsertsRoomsOnlyOncePerPair() {
+		chatRoomService.getOrCreateChatId("alice", "bob");
+		chatRoomService.getOrCreateChatId("bob", "alice");
+
+		verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq(ChatRoom.class));
+	}
+
+	@Test
+	void retriesRoomCreationAfterFailedUpsert() {
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ChatRoom.class)))
+				.thenThrow(new IllegalStateException("write failed"))
+				.thenReturn(null);
+
+		assertThatThrownBy(() -> chatRoomService.getOrCreateChatId("alice", "bob"))
+				.isInstanceOf(IllegalStateException.class);
+		chatRoomService.getOrCreateChatId("alice", "bob");
+
+		verify(mongoTemplate, times(3)).upsert(any(Query.class), any(Update.class), eq(ChatRoom.class));
+	}
+}
@@ -0,0 +1,140 @@
+package com.project.ChatNexus.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversationExecutorTest {
+
+	private ConversationExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void tasksOfOneConversationRunInSubmissionOrder() throws InterruptedException {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 4, 1000);
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(500);
+
+		for (int i = 0; i < 500; i++) {
+			int sequence = i;
+			executor.execute("alice_bob", () -> {
+				order.add(sequence);
+				done.countDown();
+			});
+		}
+
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(order).isSorted().hasSize(500);
+	}
+
+	@Test
+	void slowConversationDoesNotBlockOthersOnDifferentLanes() throws InterruptedException {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 2, 10);
+		String slowKey = keyForLane(0, 2);
+		String fastKey = keyForLane(1, 2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch fastDone = new CountDownLatch(1);
+
+		executor.execute(slowKey, () -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.execute(fastKey, fastDone::countDown);
+
+		assertThat(fastDone.await(5, TimeUnit.SECONDS)).isTrue();
+		release.countDown();
+	}
+
+	@Test
+	void failingTaskDoesNotStopItsLane() throws InterruptedException {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 1, 10);
+		CountDownLatch next = new CountDownLatch(1);
+
+		executor.execute("group-1", () -> {
+			throw new IllegalStateException("boom");
+		});
+		executor.execute("group-1", next::countDown);
+
+		assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void fullLaneBlocksTheSubmitter() throws InterruptedException {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 1, 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute("group-1", () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		executor.execute("group-1", () -> { });
+
+		ExecutorService submitter = Executors.newSingleThreadExecutor();
+		CountDownLatch submitted = new CountDownLatch(1);
+		submitter.execute(() -> {
+			executor.execute("group-1", () -> { });
+			submitted.countDown();
+		});
+
+		assertThat(submitted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		release.countDown();
+		assertThat(submitted.await(5, TimeUnit.SECONDS)).isTrue();
+		submitter.shutdown();
+	}
+
+	@Test
+	void shutdownRunsTasksAlreadyQueued() {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 2, 100);
+		List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+
+		for (int i = 0; i < 50; i++) {
+			int sequence = i;
+			executor.execute("alice_bob", () -> ran.add(sequence));
+		}
+		executor.shutdown();
+
+		assertThat(ran).hasSize(50).isSorted();
+	}
+
+	@Test
+	void invalidSizesAreRejected() {
+		executor = new ConversationExecutor(new SimpleMeterRegistry(), 1, 1);
+
+		assertThatThrownBy(() -> new ConversationExecutor(new SimpleMeterRegistry(), 0, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ConversationExecutor(new SimpleMeterRegistry(), 4, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String keyForLane(int lane, int laneCount) {
+		for (int i = 0; ; i++) {
+			String key = "chat-" + i;
+			if (Math.floorMod(key.hashCode(), laneCount) == lane) {
+				return key;
+			}
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.project.ChatNexus.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupDeletion;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.project.ChatNexus.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCascadeDeletionTest {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private MediaService mediaService;
+
+	@Mock
+	private MessageSearchIndex messageSearchIndex;
+
+	private SimpleMeterRegistry meterRegistry;
+	private GroupCascadeDeletion cascade;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		cascade = new GroupCascadeDeletion(mongoTemplate, mediaService, messageSearchIndex, meterRegistry);
+		ReflectionTestUtils.setField(cascade, "maxAttempts", 3);
+		ReflectionTestUtils.setField(cascade, "initialBackoff", Duration.ofHours(1));
+		ReflectionTestUtils.setField(cascade, "maxBackoff", Duration.ofHours(1));
+		ReflectionTestUtils.setField(cascade, "lease", Duration.ofMinutes(5));
+		ReflectionTestUtils.setField(cascade, "batchSize", 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		cascade.shutdown();
+	}
+
+	private double pending() {
+		return meterRegistry.get("chatnexus.groups.cascade.pending").gauge().value();
+	}
+
+	private void failRun(int attempts) {
+		when(mongoTemplate.remove(any(Query.class), eq(Group.class))).thenThrow(new IllegalStateException("mongo down"));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(GroupDeletion.class))).thenReturn(GroupDeletion.builder().id("g1").attempts(attempts).build());
+		@SuppressWarnings("unchecked")
+		Set<String> unfinished = (Set<String>) ReflectionTestUtils.getField(cascade, "unfinished");
+		unfinished.add("g1");
+		ReflectionTestUtils.invokeMethod(cascade, "run", "g1");
+	}
+
+	private void claimJob(boolean claimable) {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(GroupDeletion.class))).thenReturn(claimable ? GroupDeletion.builder().id("g1").build() : null);
+	}
+
+	private static GroupMessage message(String id, String mediaPublicId) {
+		return GroupMessage.builder()
+				.id(id)
+				.groupId("g1")
+				.messageType(mediaPublicId == null ? MessageType.TEXT : MessageType.IMAGE)
+				.mediaPublicId(mediaPublicId)
+				.build();
+	}
+
+	@Test
+	void failedCascadeStaysPendingWhileItWillBeRetried() {
+		failRun(1);
+
+		assertThat(pending()).isEqualTo(1);
+		verify(mongoTemplate, never()).count(any(Query.class), eq(GroupDeletion.class));
+	}
+
+	@Test
+	void cascadeGivesUpAfterTheLastAttempt() {
+		failRun(3);
+
+		assertThat(pending()).isZero();
+	}
+
+	@Test
+	void streamsMessagesInBatchesAndReleasesOnlyTheMediaItDeleted() {
+		claimJob(true);
+		when(mongoTemplate.remove(any(Query.class), eq(Group.class))).thenReturn(DeleteResult.acknowledged(1));
+		when(mongoTemplate.count(any(Query.class), eq(GroupMessage.class))).thenReturn(3L);
+		when(mongoTemplate.stream(any(Query.class), eq(GroupMessage.class))).thenReturn(Stream.of(
+				message("m1", null), message("m2", "pub2"), message("m3", "pub3")));
+		// m3 was removed by an earlier run, which also released its file
+		when(mongoTemplate.remove(any(Query.class), eq(GroupMessage.class))).thenAnswer(invocation -> {
+			Query query = invocation.getArgument(0);
+			return DeleteResult.acknowledged("m3".equals(query.getQueryObject().get("id")) ? 0 : 1);
+		});
+		when(mongoTemplate.remove(any(Query.class), eq(GroupReadStatus.class))).thenReturn(DeleteResult.acknowledged(0));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(GroupDeletion.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		ReflectionTestUtils.invokeMethod(cascade, "run", "g1");
+
+		ArgumentCaptor<Query> streamed = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).stream(streamed.capture(), eq(GroupMessage.class));
+		assertThat(streamed.getValue().getFieldsObject().keySet()).containsOnly("id", "mediaPublicId", "messageType");
+		// Batch [m1, m2]: one deleteMany for the text message, one delete for the media message; batch [m3]: one delete
+		verify(mongoTemplate, times(3)).remove(any(Query.class), eq(GroupMessage.class));
+		verify(mediaService).releaseFile("pub2", MessageType.IMAGE);
+		verify(mediaService, never()).releaseFile(eq("pub3"), any());
+		assertThat(meterRegistry.get("chatnexus.groups.cascade.messages.deleted").counter().count()).isEqualTo(2);
+		assertThat(pending()).isZero();
+	}
+
+	@Test
+	void jobLeasedByAnotherInstanceIsLeftAlone() {
+		claimJob(false);
+		@SuppressWarnings("unchecked")
+		Set<String> unfinished = (Set<String>) ReflectionTestUtils.getField(cascade, "unfinished");
+		unfinished.add("g1");
+
+		ReflectionTestUtils.invokeMethod(cascade, "run", "g1");
+
+		verify(mongoTemplate, never()).remove(any(Query.class), any(Class.class));
+		verify(mongoTemplate, never()).stream(any(Query.class), any());
+		assertThat(pending()).isZero();
+	}
+
+	@Test
+	void runStopsDeletingOnceItsLeaseIsLost() {
+		claimJob(true);
+		when(mongoTemplate.remove(any(Query.class), eq(Group.class))).thenReturn(DeleteResult.acknowledged(1));
+		when(mongoTemplate.stream(any(Query.class), eq(GroupMessage.class))).thenReturn(Stream.of(message("m1", "pub1")));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(GroupDeletion.class)))
+				.thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+		ReflectionTestUtils.invokeMethod(cascade, "run", "g1");
+
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(GroupMessage.class));
+		verifyNoInteractions(mediaService);
+	}
+}
@@ -0,0 +1,156 @@
+package com.project.ChatNexus.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.model.GroupReadStatus;
+import com.project.ChatNexus.model.MessageType;
+import com.project.ChatNexus.repository.GroupMessageRepository;
+import com.project.ChatNexus.repository.GroupRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupMessageServiceTest {
+
+	@Mock
+	private GroupMessageRepository groupMessageRepository;
+	@Mock
+	private GroupRepository groupRepository;
+	@Mock
+	private UserService userService;
+	@Mock
+	private MongoTemplate mongoTemplate;
+	@Mock
+	private MessageWriteBehind messageWriteBehind;
+	@Mock
+	private MediaPreviewService mediaPreviewService;
+	@Mock
+	private MessageSearchIndex messageSearchIndex;
+	@Mock
+	private MediaService mediaService;
+
+	@InjectMocks
+	private GroupMessageService groupMessageService;
+
+	private GroupMessage message() {
+		when(mediaPreviewService.find(any())).thenReturn(Optional.empty());
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Group.class)))
+				.thenReturn(Group.builder().id("g1").messageSeq(7).build());
+		return GroupMessage.builder().groupId("g1").senderId("alice").senderName("Alice").content("hi").build();
+	}
+
+	@Test
+	void sendingCountsAnOwnMessageWithoutAdvancingTheReadPosition() {
+		GroupMessage message = message();
+		when(groupMessageRepository.save(message)).thenReturn(message);
+
+		groupMessageService.save(message);
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(GroupReadStatus.class));
+		Document document = update.getValue().getUpdateObject();
+		assertThat(document).containsKey("$inc").doesNotContainKey("$max");
+		assertThat(document.get("$inc", Document.class)).containsEntry("ownMessagesSinceRead", 1);
+	}
+
+	@Test
+	void failedSaveGivesBackItsSequence() {
+		GroupMessage message = message();
+		when(groupMessageRepository.save(message)).thenThrow(new IllegalStateException("write failed"));
+		when(groupMessageRepository.findTopByGroupIdOrderByTimestampDesc(anyString())).thenReturn(Optional.empty());
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Group.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		assertThatThrownBy(() -> groupMessageService.save(message)).hasMessage("write failed");
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Group.class));
+		assertThat(query.getValue().getQueryObject()).containsEntry("messageSeq", 7L);
+		assertThat(update.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("messageSeq", -1);
+		verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(GroupReadStatus.class));
+		verifyNoInteractions(messageSearchIndex, mediaService);
+	}
+
+	@Test
+	void savedMessageReferencesItsMedia() {
+		GroupMessage message = message();
+		message.setMediaPublicId("media/abc");
+		when(groupMessageRepository.save(message)).thenReturn(message);
+
+		groupMessageService.save(message);
+
+		verify(mediaService).referenceFile("media/abc");
+	}
+
+	@Test
+	void writeBehindMessageIsIndexedOnlyOnceSaved() {
+		GroupMessage message = message();
+		when(messageWriteBehind.isEnabled()).thenReturn(true);
+		when(messageWriteBehind.nextId()).thenReturn("m1");
+
+		groupMessageService.save(message);
+
+		ArgumentCaptor<Runnable> afterPersist = ArgumentCaptor.forClass(Runnable.class);
+		verify(messageWriteBehind).submit(eq(message), afterPersist.capture(), any(Runnable.class));
+		verifyNoInteractions(messageSearchIndex);
+
+		afterPersist.getValue().run();
+
+		verify(messageSearchIndex).index(message);
+	}
+
+	@Test
+	void userNamedSystemStillNeedsMembership() {
+		GroupMessage message = message();
+		message.setSenderId(GroupMessage.SYSTEM_SENDER_ID);
+		when(groupMessageRepository.save(message)).thenReturn(message);
+
+		groupMessageService.save(message);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Group.class));
+		assertThat(query.getValue().getQueryObject()).containsEntry("memberIds", GroupMessage.SYSTEM_SENDER_ID);
+	}
+
+	@Test
+	void usersCannotSendSystemMessages() {
+		GroupMessage message = GroupMessage.builder().groupId("g1").senderId("alice").messageType(MessageType.SYSTEM).build();
+
+		assertThatThrownBy(() -> groupMessageService.save(message)).isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(mongoTemplate, groupMessageRepository);
+	}
+
+	@Test
+	void systemMessagesSkipTheMembershipCheck() {
+		GroupMessage message = message();
+		message.setMessageType(MessageType.SYSTEM);
+		when(groupMessageRepository.save(message)).thenReturn(message);
+
+		groupMessageService.saveSystemMessage(message);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(Update.class), any(FindAndModifyOptions.class), eq(Group.class));
+		assertThat(query.getValue().getQueryObject()).doesNotContainKey("memberIds");
+		assertThat(message.getSenderId()).isEqualTo(GroupMessage.SYSTEM_SENDER_ID);
+	}
+}
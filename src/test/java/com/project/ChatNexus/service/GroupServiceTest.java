@@ -0,0 +1,45 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupReadStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class GroupServiceTest {
+
+	@InjectMocks
+	private GroupService groupService;
+
+	@Test
+	void ownMessagesDoNotHideEarlierMessagesFromOthers() {
+		// A read up to 5, B posted 6, A posted 7
+		GroupReadStatus readStatus = GroupReadStatus.builder().lastReadSeq(5).ownMessagesSinceRead(1).build();
+
+		assertThat(groupService.unreadCount(7, readStatus)).isEqualTo(1);
+	}
+
+	@Test
+	void ownMessagesAreNotUnread() {
+		GroupReadStatus readStatus = GroupReadStatus.builder().lastReadSeq(5).ownMessagesSinceRead(2).build();
+
+		assertThat(groupService.unreadCount(7, readStatus)).isZero();
+	}
+
+	@Test
+	void everythingIsUnreadWithoutReadStatus() {
+		assertThat(groupService.unreadCount(4, null)).isEqualTo(4);
+	}
+
+	@Test
+	void mapsUnreadCountIntoResponse() {
+		Group group = Group.builder().id("g1").name("Team").messageSeq(10).build();
+		GroupReadStatus readStatus = GroupReadStatus.builder().lastReadSeq(8).build();
+
+		assertThat(groupService.mapToGroupResponseWithUnread(group, readStatus).getUnreadCount()).isEqualTo(2);
+	}
+}
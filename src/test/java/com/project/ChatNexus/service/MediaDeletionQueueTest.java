@@ -0,0 +1,150 @@
+package com.project.ChatNexus.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.project.ChatNexus.model.MediaDeletion;
+import com.project.ChatNexus.model.MessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDeletionQueueTest {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private MediaStorage mediaStorage;
+
+	@Mock
+	private MediaObjectRegistry mediaObjectRegistry;
+
+	private MediaDeletionQueue queue;
+
+	@BeforeEach
+	void setUp() {
+		queue = new MediaDeletionQueue(mongoTemplate, mediaStorage, mediaObjectRegistry, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(queue, "maxAttempts", 10);
+		ReflectionTestUtils.setField(queue, "initialBackoff", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(queue, "maxBackoff", Duration.ofHours(6));
+	}
+
+	private static MediaDeletion entry(String id, String publicId) {
+		return entry(id, publicId, MessageType.IMAGE);
+	}
+
+	private static MediaDeletion entry(String id, String publicId, MessageType messageType) {
+		return MediaDeletion.builder().id(id).publicId(publicId).messageType(messageType).attempts(0).build();
+	}
+
+	private void deleteBatch(List<MediaDeletion> batch) {
+		ReflectionTestUtils.invokeMethod(queue, "deleteBatch", "image", batch);
+	}
+
+	@Test
+	void onlyFilesStorageDidNotDeleteAreRetried() throws Exception {
+		when(mediaObjectRegistry.findRegistered(anyList())).thenReturn(Set.of());
+		when(mediaStorage.deleteAll(List.of("media/a", "media/b"), MessageType.IMAGE))
+				.thenReturn(Map.of("media/b", "rate limited"));
+		when(mongoTemplate.remove(any(Query.class), eq(MediaDeletion.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		deleteBatch(List.of(entry("1", "media/a"), entry("2", "media/b")));
+
+		ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).remove(removed.capture(), eq(MediaDeletion.class));
+		assertThat(removed.getValue().getQueryObject().get("id", Document.class).getList("$in", String.class))
+				.containsExactly("1");
+
+		ArgumentCaptor<Query> retried = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(retried.capture(), update.capture(), eq(MediaDeletion.class));
+		assertThat(retried.getValue().getQueryObject()).containsEntry("id", "2");
+		assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+				.containsEntry("attempts", 1)
+				.containsEntry("lastError", "rate limited")
+				.containsKey("nextAttemptAt");
+	}
+
+	@Test
+	void failedCallRetriesTheWholeBatch() throws Exception {
+		when(mediaObjectRegistry.findRegistered(anyList())).thenReturn(Set.of());
+		when(mediaStorage.deleteAll(anyList(), eq(MessageType.IMAGE))).thenThrow(new IOException("down"));
+
+		deleteBatch(List.of(entry("1", "media/a"), entry("2", "media/b")));
+
+		verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(MediaDeletion.class));
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaDeletion.class));
+	}
+
+	@Test
+	void filesStillRegisteredAreNotDeleted() throws Exception {
+		when(mediaObjectRegistry.findRegistered(anyList())).thenReturn(Set.of("media/a"));
+
+		deleteBatch(List.of(entry("1", "media/a")));
+
+		verify(mediaStorage, never()).deleteAll(anyList(), any());
+		verify(mongoTemplate).remove(any(Query.class), eq(MediaDeletion.class));
+	}
+
+	@Test
+	void typesSharingAStorageKeyAreDeletedInOneCall() {
+		when(mediaStorage.batchKey(MessageType.IMAGE)).thenReturn("image");
+		when(mediaStorage.batchKey(MessageType.VIDEO)).thenReturn("video");
+		when(mediaStorage.batchKey(MessageType.AUDIO)).thenReturn("video");
+
+		Map<String, List<MediaDeletion>> batches = ReflectionTestUtils.invokeMethod(queue, "batchByStorageKey", List.of(
+				entry("1", "media/a", MessageType.VIDEO),
+				entry("2", "media/b", MessageType.AUDIO),
+				entry("3", "media/c", MessageType.IMAGE)));
+
+		assertThat(batches).containsOnlyKeys("video", "image");
+		assertThat(batches.get("video")).extracting(MediaDeletion::getId).containsExactly("1", "2");
+	}
+
+	@Test
+	void legacyEntriesOfUnstoredTypesAreParkedInsteadOfRetried() {
+		Map<String, List<MediaDeletion>> batches = ReflectionTestUtils.invokeMethod(queue, "batchByStorageKey",
+				List.of(entry("1", "media/a", MessageType.TEXT), entry("2", "media/b", null)));
+
+		assertThat(batches).isEmpty();
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate, times(2)).updateFirst(any(Query.class), update.capture(), eq(MediaDeletion.class));
+		assertThat(update.getAllValues()).allSatisfy(parked ->
+				assertThat(parked.getUpdateObject().get("$unset", Document.class)).containsKey("nextAttemptAt"));
+		verifyNoInteractions(mediaStorage);
+	}
+
+	@ParameterizedTest
+	@NullSource
+	@EnumSource(value = MessageType.class, names = {"TEXT", "SYSTEM"})
+	void enqueueRejectsTypesThatAreNeverStored(MessageType messageType) {
+		assertThatThrownBy(() -> queue.enqueue(List.of("media/a"), messageType))
+				.isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(mongoTemplate);
+	}
+}
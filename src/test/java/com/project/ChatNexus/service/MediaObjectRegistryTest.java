@@ -0,0 +1,109 @@
+package com.project.ChatNexus.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.project.ChatNexus.model.MediaObject;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaObjectRegistryTest {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private MediaObjectRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(registry, "unreferencedTtl", Duration.ofHours(24));
+	}
+
+	private static MediaObject object(long refCount) {
+		return MediaObject.builder().id("hash").publicId("media/abc").refCount(refCount).lastReferencedAt(new Date()).build();
+	}
+
+	@Test
+	void uploadsDoNotAddReferences() {
+		registry.acquire("hash");
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+				eq(MediaObject.class));
+		assertThat(update.getValue().getUpdateObject()).containsKey("$set").doesNotContainKey("$inc");
+	}
+
+	@Test
+	void messagesAddOneReference() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(MediaObject.class)))
+				.thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+		assertThat(registry.reference("media/abc")).isTrue();
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(MediaObject.class));
+		assertThat(update.getValue().getUpdateObject().get("$inc", Document.class)).containsEntry("refCount", 1);
+	}
+
+	@Test
+	void releaseReturnsTheRemainingReferences() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(MediaObject.class))).thenReturn(object(1));
+
+		assertThat(registry.release("media/abc").getRefCount()).isEqualTo(1);
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaObject.class));
+	}
+
+	@Test
+	void untrackedFilesReleaseToNull() {
+		assertThat(registry.release("legacy")).isNull();
+	}
+
+	@Test
+	void removalOnlyMatchesUnreferencedObjectsPastTheGracePeriod() {
+		when(mongoTemplate.remove(any(Query.class), eq(MediaObject.class))).thenReturn(DeleteResult.acknowledged(1));
+
+		assertThat(registry.removeIfUnreferenced("hash")).isTrue();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).remove(query.capture(), eq(MediaObject.class));
+		assertThat(query.getValue().getQueryObject()).containsKeys("refCount", "lastReferencedAt", "id");
+	}
+
+	@Test
+	void recentlyUploadedObjectIsNotRemoved() {
+		when(mongoTemplate.remove(any(Query.class), eq(MediaObject.class))).thenReturn(DeleteResult.acknowledged(0));
+
+		assertThat(registry.removeIfUnreferenced("hash")).isFalse();
+	}
+
+	@Test
+	void registeredFilesIncludeThumbnails() {
+		MediaObject video = MediaObject.builder().id("hash").publicId("media/video").thumbnailPublicId("media/thumb").build();
+		when(mongoTemplate.find(any(Query.class), eq(MediaObject.class))).thenReturn(List.of(video));
+
+		assertThat(registry.findRegistered(List.of("media/thumb", "media/gone")))
+				.containsExactly("media/thumb");
+	}
+}
@@ -0,0 +1,56 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MediaObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MediaPreviewServiceTest {
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private MediaPreviewService mediaPreviewService;
+
+	@BeforeEach
+	void setUp(@TempDir Path workDir) throws Exception {
+		mediaPreviewService = new MediaPreviewService(mock(MediaStorage.class), mongoTemplate, new SimpleMeterRegistry(),
+				true, 1, 1, 320, 0.8f, workDir, Duration.ofMinutes(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		mediaPreviewService.shutdown();
+	}
+
+	@Test
+	void pendingPreviewIsLookedUpOnceWhileCached() {
+		mediaPreviewService.find("media/abc");
+		mediaPreviewService.find("media/abc");
+
+		verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(MediaObject.class));
+	}
+
+	@Test
+	void evictionDropsCachedPreview() {
+		when(mongoTemplate.findOne(any(Query.class), eq(MediaObject.class)))
+				.thenReturn(MediaObject.builder().publicId("media/abc").thumbnailUrl("thumb").width(10).height(10).build())
+				.thenReturn(null);
+
+		assertThat(mediaPreviewService.find("media/abc")).isPresent();
+		mediaPreviewService.evict("media/abc");
+
+		assertThat(mediaPreviewService.find("media/abc")).isEmpty();
+		verify(mongoTemplate, times(2)).findOne(any(Query.class), eq(MediaObject.class));
+	}
+}
@@ -0,0 +1,95 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.MessageType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MediaSignaturesTest {
+
+	private static final byte[] PNG = bytes(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A);
+
+	static Stream<Arguments> supportedFormats() {
+		return Stream.of(
+				Arguments.of("jpg", MessageType.IMAGE, "image/jpeg", bytes(0xFF, 0xD8, 0xFF, 0xE0)),
+				Arguments.of("jpeg", MessageType.IMAGE, "image/jpeg", bytes(0xFF, 0xD8, 0xFF, 0xE1)),
+				Arguments.of("png", MessageType.IMAGE, "image/png", PNG),
+				Arguments.of("gif", MessageType.IMAGE, "image/gif", ascii("GIF89a")),
+				Arguments.of("webp", MessageType.IMAGE, "image/webp", ascii("RIFF\0\0\0\0WEBPVP8 ")),
+				Arguments.of("bmp", MessageType.IMAGE, "image/bmp", ascii("BM")),
+				Arguments.of("mp4", MessageType.VIDEO, "video/mp4", ascii("\0\0\0\u0018ftypmp42")),
+				Arguments.of("mov", MessageType.VIDEO, "video/quicktime", ascii("\0\0\0\u0014ftypqt  ")),
+				Arguments.of("avi", MessageType.VIDEO, "video/x-msvideo", ascii("RIFF\0\0\0\0AVI LIST")),
+				Arguments.of("mkv", MessageType.VIDEO, "video/x-matroska", bytes(0x1A, 0x45, 0xDF, 0xA3)),
+				Arguments.of("webm", MessageType.VIDEO, "video/webm", bytes(0x1A, 0x45, 0xDF, 0xA3)),
+				Arguments.of("mp3", MessageType.AUDIO, "audio/mpeg", ascii("ID3\u0004")),
+				Arguments.of("mp3", MessageType.AUDIO, "audio/mpeg", bytes(0xFF, 0xFB, 0x90, 0x64)),
+				Arguments.of("wav", MessageType.AUDIO, "audio/wav", ascii("RIFF\0\0\0\0WAVEfmt ")),
+				Arguments.of("ogg", MessageType.AUDIO, "audio/ogg", ascii("OggS")),
+				Arguments.of("m4a", MessageType.AUDIO, "audio/mp4", ascii("\0\0\0 ftypM4A ")),
+				Arguments.of("aac", MessageType.AUDIO, "audio/aac", bytes(0xFF, 0xF1, 0x50, 0x80)));
+	}
+
+	@ParameterizedTest(name = ".{0} as {2}")
+	@MethodSource("supportedFormats")
+	void acceptsEachSupportedFormat(String extension, MessageType type, String contentType, byte[] header) {
+		assertThatCode(() -> MediaSignatures.verify(extension, type, contentType, header)).doesNotThrowAnyException();
+	}
+
+	@ParameterizedTest(name = ".{0} without a declared type")
+	@MethodSource("supportedFormats")
+	void acceptsEachSupportedFormatWithoutAContentType(String extension, MessageType type, String contentType,
+													   byte[] header) {
+		assertThatCode(() -> MediaSignatures.verify(extension, type, null, header)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void rejectsAPngRenamedToJpg() {
+		assertThatThrownBy(() -> MediaSignatures.verify("jpg", MessageType.IMAGE, "image/jpeg", PNG))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("does not match .jpg format");
+	}
+
+	@Test
+	void rejectsAContentTypeOfAnotherMediaKind() {
+		assertThatThrownBy(() -> MediaSignatures.verify("png", MessageType.IMAGE, "video/mp4", PNG))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Content type video/mp4");
+	}
+
+	@Test
+	void rejectsAnEmptyBody() {
+		assertThatThrownBy(() -> MediaSignatures.verify("png", MessageType.IMAGE, "image/png", new byte[0]))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void readsOnlyTheHeader() throws Exception {
+		byte[] body = new byte[1024];
+		Arrays.fill(body, (byte) 1);
+
+		assertThat(MediaSignatures.readHeader(new ByteArrayInputStream(body))).hasSize(MediaSignatures.HEADER_LENGTH);
+	}
+
+	private static byte[] bytes(int... values) {
+		byte[] result = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = (byte) values[i];
+		}
+		return result;
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.ISO_8859_1);
+	}
+}
@@ -0,0 +1,126 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.MessagePageResponse;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageCursorTest {
+
+	private static final String OBJECT_ID = "65f1c0ffee0000000000abcd";
+
+	private record Message(String id, long time) {
+		MessageCursor cursor() {
+			return new MessageCursor(new Date(time), id);
+		}
+	}
+
+	@Test
+	void encodedCursorDecodesToTheSamePosition() {
+		MessageCursor cursor = new MessageCursor(new Date(1_700_000_000_123L), OBJECT_ID);
+
+		assertThat(MessageCursor.decode(cursor.encode())).isEqualTo(cursor);
+		assertThat(cursor.encode()).doesNotContain("=", "+", "/");
+	}
+
+	@Test
+	void missingTokenDecodesToNull() {
+		assertThat(MessageCursor.decode(null)).isNull();
+		assertThat(MessageCursor.decode(" ")).isNull();
+	}
+
+	@Test
+	void malformedTokensAreRejected() {
+		assertThatThrownBy(() -> MessageCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> MessageCursor.decode("bm8tc2VwYXJhdG9y")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> MessageCursor.decode("YWJjOmlk")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void pageSizeIsClamped() {
+		assertThat(MessageCursor.pageSize(null)).isEqualTo(MessageCursor.DEFAULT_PAGE_SIZE);
+		assertThat(MessageCursor.pageSize(0)).isEqualTo(MessageCursor.DEFAULT_PAGE_SIZE);
+		assertThat(MessageCursor.pageSize(10)).isEqualTo(10);
+		assertThat(MessageCursor.pageSize(10_000)).isEqualTo(MessageCursor.MAX_PAGE_SIZE);
+	}
+
+	@Test
+	void latestPageReadsNewestFirstWithOneLookAheadRow() {
+		Query query = MessageCursor.pageQuery(Criteria.where("chatId").is("a_b"), "timeStamp", null, null, 20);
+
+		assertThat(query.getQueryObject()).containsEntry("chatId", "a_b");
+		assertThat(query.getSortObject()).isEqualTo(new Document("timeStamp", -1).append("id", -1));
+		assertThat(query.getLimit()).isEqualTo(21);
+	}
+
+	@Test
+	void olderPageBreaksTimestampTiesById() {
+		MessageCursor before = new MessageCursor(new Date(1000), OBJECT_ID);
+
+		Query query = MessageCursor.pageQuery(Criteria.where("chatId").is("a_b"), "timeStamp", before, null, 20);
+
+		Document tie = query.getQueryObject().getList("$and", Document.class).get(1)
+				.getList("$or", Document.class).get(1);
+		assertThat(tie.get("id", Document.class).get("$lt")).isEqualTo(new ObjectId(OBJECT_ID));
+		assertThat(query.getSortObject()).isEqualTo(new Document("timeStamp", -1).append("id", -1));
+	}
+
+	@Test
+	void newerPageReadsOldestFirst() {
+		MessageCursor after = new MessageCursor(new Date(1000), "legacy-id");
+
+		Query query = MessageCursor.pageQuery(Criteria.where("groupId").is("g1"), "timestamp", null, after, 20);
+
+		Document tie = query.getQueryObject().getList("$and", Document.class).get(1)
+				.getList("$or", Document.class).get(1);
+		assertThat(tie.get("id", Document.class).get("$gt")).isEqualTo("legacy-id");
+		assertThat(query.getSortObject()).isEqualTo(new Document("timestamp", 1).append("id", 1));
+	}
+
+	@Test
+	void beforeAndAfterAreExclusive() {
+		MessageCursor cursor = new MessageCursor(new Date(1000), OBJECT_ID);
+
+		assertThatThrownBy(() -> MessageCursor.pageQuery(Criteria.where("chatId").is("a_b"), "timeStamp",
+				cursor, cursor, 20)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void descendingRowsBecomeAChronologicalPageWithoutTheLookAheadRow() {
+		List<Message> rows = List.of(new Message("m4", 4), new Message("m3", 3), new Message("m2", 2));
+
+		MessagePageResponse<Message> page = MessageCursor.toPage(rows, 2, false, Message::cursor);
+
+		assertThat(page.getMessages()).extracting(Message::id).containsExactly("m3", "m4");
+		assertThat(page.isHasMore()).isTrue();
+		assertThat(MessageCursor.decode(page.getOlderCursor())).isEqualTo(new Message("m3", 3).cursor());
+		assertThat(MessageCursor.decode(page.getNewerCursor())).isEqualTo(new Message("m4", 4).cursor());
+	}
+
+	@Test
+	void ascendingRowsKeepTheirOrder() {
+		List<Message> rows = List.of(new Message("m2", 2), new Message("m3", 3));
+
+		MessagePageResponse<Message> page = MessageCursor.toPage(rows, 2, true, Message::cursor);
+
+		assertThat(page.getMessages()).extracting(Message::id).containsExactly("m2", "m3");
+		assertThat(page.isHasMore()).isFalse();
+	}
+
+	@Test
+	void emptyPageHasNoCursors() {
+		MessagePageResponse<Message> page = MessageCursor.toPage(List.of(), 20, false, Message::cursor);
+
+		assertThat(page.getMessages()).isEmpty();
+		assertThat(page.getOlderCursor()).isNull();
+		assertThat(page.getNewerCursor()).isNull();
+	}
+}
@@ -0,0 +1,111 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.dto.response.MessageSearchResult;
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.repository.GroupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageSearchIndexTest {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private GroupRepository groupRepository;
+
+	@TempDir
+	private Path indexDir;
+
+	private MessageSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new MessageSearchIndex(mongoTemplate, groupRepository, new SimpleMeterRegistry(),
+				true, indexDir, 500, 100, Duration.ofSeconds(30), 1000, false);
+
+		when(mongoTemplate.stream(any(Query.class), eq(ChatMessage.class))).thenReturn(Stream.of(
+				direct("d1", "alice", "bob"),
+				direct("d2", "carol", "dave")));
+		when(mongoTemplate.stream(any(Query.class), eq(GroupMessage.class))).thenReturn(Stream.of(
+				group("g1-message", "g1"),
+				group("g2-message", "g2")));
+		ReflectionTestUtils.invokeMethod(index, "rebuildFromMongo");
+	}
+
+	@AfterEach
+	void tearDown() {
+		index.shutdown();
+	}
+
+	private static ChatMessage direct(String id, String senderId, String recipientId) {
+		return ChatMessage.builder()
+				.id(id)
+				.chatId(senderId + "_" + recipientId)
+				.senderId(senderId)
+				.recipientId(recipientId)
+				.content("meeting tomorrow")
+				.timeStamp(new Date())
+				.build();
+	}
+
+	private static GroupMessage group(String id, String groupId) {
+		return GroupMessage.builder()
+				.id(id)
+				.groupId(groupId)
+				.senderId("erin")
+				.content("meeting tomorrow")
+				.timestamp(new Date())
+				.build();
+	}
+
+	private List<String> search(String requesterId) {
+		return index.search(requesterId, "meeting", 0, 20, false).getResults().stream()
+				.map(MessageSearchResult::getMessageId)
+				.toList();
+	}
+
+	@Test
+	void resultsAreLimitedToOwnChatsAndCurrentGroups() {
+		when(groupRepository.findByMemberIdsContaining("alice")).thenReturn(List.of(Group.builder().id("g1").build()));
+
+		assertThat(search("alice")).containsExactlyInAnyOrder("d1", "g1-message");
+	}
+
+	@Test
+	void recipientsFindTheirDirectMessages() {
+		when(groupRepository.findByMemberIdsContaining("bob")).thenReturn(List.of());
+
+		assertThat(search("bob")).containsExactly("d1");
+	}
+
+	@Test
+	void leavingAGroupHidesItsMessages() {
+		when(groupRepository.findByMemberIdsContaining("erin")).thenReturn(List.of());
+
+		assertThat(search("erin")).isEmpty();
+	}
+}
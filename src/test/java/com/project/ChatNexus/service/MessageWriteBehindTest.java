@@ -0,0 +1,121 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.ChatMessage;
+import com.project.ChatNexus.model.GroupMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageWriteBehindTest {
+
+	@Mock
+	private MongoDatabaseFactory mongoDatabaseFactory;
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoTemplate writeTemplate;
+
+	private MessageWriteBehind writeBehind;
+
+	@AfterEach
+	void tearDown() {
+		writeBehind.shutdown();
+	}
+
+	private MessageWriteBehind writeBehind(boolean enabled, Duration flushInterval) {
+		when(mongoDatabaseFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+		writeBehind = new MessageWriteBehind(mongoDatabaseFactory, mongoTemplate, new SimpleMeterRegistry(),
+				enabled, 256, flushInterval, 100, Duration.ofMillis(50), MessageWriteBehind.Durability.ACKNOWLEDGED);
+		ReflectionTestUtils.setField(writeBehind, "writeTemplate", writeTemplate);
+		return writeBehind;
+	}
+
+	private static ChatMessage chatMessage(String id) {
+		return ChatMessage.builder().id(id).chatId("a_b").senderId("a").recipientId("b").content("hi").build();
+	}
+
+	@Test
+	void disabledPipelineWritesSynchronously() {
+		AtomicBoolean committed = new AtomicBoolean();
+		ChatMessage message = chatMessage("m1");
+
+		writeBehind(false, Duration.ofMillis(5)).submit(message, () -> committed.set(true));
+
+		verify(writeTemplate).save(message);
+		assertThat(committed).isTrue();
+	}
+
+	@Test
+	void queuedMessagesAreInsertedOnceBatchPerTypeBeforeTheirFollowUp() throws InterruptedException {
+		CountDownLatch committed = new CountDownLatch(3);
+		writeBehind(true, Duration.ofMillis(200));
+		when(writeTemplate.insert(anyList(), any(Class.class))).thenReturn(List.of());
+
+		writeBehind.submit(chatMessage("m1"), committed::countDown);
+		writeBehind.submit(GroupMessage.builder().id("g1").groupId("group").senderId("a").content("hi").build(),
+				committed::countDown);
+		writeBehind.submit(chatMessage("m2"), committed::countDown);
+
+		assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<ChatMessage>> chatBatch = ArgumentCaptor.forClass(List.class);
+		verify(writeTemplate).insert(chatBatch.capture(), eq(ChatMessage.class));
+		assertThat(chatBatch.getValue()).extracting(ChatMessage::getId).containsExactly("m1", "m2");
+		verify(writeTemplate).insert(anyList(), eq(GroupMessage.class));
+		verify(writeTemplate, never()).save(any());
+	}
+
+	@Test
+	void failedBatchIsRetriedOneByOneAndGivenUpMessagesAreCompensated() throws InterruptedException {
+		CountDownLatch settled = new CountDownLatch(2);
+		AtomicBoolean failedMessageCommitted = new AtomicBoolean();
+		ChatMessage saved = chatMessage("m1");
+		ChatMessage rejected = chatMessage("m2");
+		writeBehind(true, Duration.ofMillis(200));
+		when(writeTemplate.insert(anyList(), eq(ChatMessage.class))).thenThrow(new IllegalStateException("batch failed"));
+		when(writeTemplate.save(saved)).thenReturn(saved);
+		when(writeTemplate.save(rejected)).thenThrow(new IllegalStateException("write failed"));
+
+		writeBehind.submit(saved, settled::countDown, () -> { });
+		writeBehind.submit(rejected, () -> failedMessageCommitted.set(true), settled::countDown);
+
+		assertThat(settled.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(failedMessageCommitted).isFalse();
+	}
+
+	@Test
+	void shutdownFlushesQueuedMessages() {
+		AtomicBoolean committed = new AtomicBoolean();
+		writeBehind(true, Duration.ofSeconds(1));
+		when(writeTemplate.insert(anyList(), eq(ChatMessage.class))).thenReturn(List.of());
+
+		writeBehind.submit(chatMessage("m1"), () -> committed.set(true));
+		writeBehind.shutdown();
+
+		assertThat(committed).isTrue();
+		verify(writeTemplate).insert(anyList(), eq(ChatMessage.class));
+	}
+}
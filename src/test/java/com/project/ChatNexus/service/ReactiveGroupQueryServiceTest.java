@@ -0,0 +1,68 @@
+package com.project.ChatNexus.service;
+
+import com.project.ChatNexus.model.Group;
+import com.project.ChatNexus.model.GroupMessage;
+import com.project.ChatNexus.repository.ReactiveGroupMessageRepository;
+import com.project.ChatNexus.repository.ReactiveGroupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveGroupQueryServiceTest {
+
+	@Mock
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+	@Mock
+	private ReactiveGroupRepository groupRepository;
+	@Mock
+	private ReactiveGroupMessageRepository groupMessageRepository;
+
+	@InjectMocks
+	private ReactiveGroupQueryService reactiveGroupQueryService;
+
+	private final AtomicBoolean messagesRead = new AtomicBoolean();
+
+	private Flux<GroupMessage> trackedMessages() {
+		return Flux.defer(() -> {
+			messagesRead.set(true);
+			return Flux.just(GroupMessage.builder().id("m1").groupId("g1").build());
+		});
+	}
+
+	@Test
+	void nonMembersNeverReadMessages() {
+		when(reactiveMongoTemplate.exists(any(Query.class), eq(Group.class))).thenReturn(Mono.just(false));
+		when(groupRepository.existsById("g1")).thenReturn(Mono.just(true));
+		when(groupMessageRepository.findByGroupIdOrderByTimestampAsc("g1")).thenReturn(trackedMessages());
+
+		assertThatThrownBy(() -> reactiveGroupQueryService.findGroupMessages("g1", "mallory").block())
+				.hasMessage("User is not a member of this group");
+		assertThat(messagesRead).isFalse();
+	}
+
+	@Test
+	void membersReadMessagesAfterTheCheck() {
+		when(reactiveMongoTemplate.exists(any(Query.class), eq(Group.class))).thenReturn(Mono.just(true));
+		when(groupMessageRepository.findByGroupIdOrderByTimestampAsc("g1")).thenReturn(trackedMessages());
+
+		List<GroupMessage> messages = reactiveGroupQueryService.findGroupMessages("g1", "alice").block();
+
+		assertThat(messages).extracting(GroupMessage::getId).containsExactly("m1");
+	}
+}
@@ -0,0 +1,71 @@
+package com.project.ChatNexus.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadSessionTest {
+
+	private final ChunkedUploadService.UploadSession session = new ChunkedUploadService.UploadSession(
+			"u1", "alice", "clip.mp4", "video/mp4", 100, Path.of("u1.part"), null);
+
+	@Test
+	void contiguousBytesStopAtTheFirstGap() {
+		session.markReceived(0, 10);
+		session.markReceived(20, 30);
+
+		assertThat(session.contiguousBytes()).isEqualTo(10);
+		assertThat(session.receivedBytes()).isEqualTo(20);
+	}
+
+	@Test
+	void fillingAGapMergesBothNeighbours() {
+		session.markReceived(0, 10);
+		session.markReceived(20, 30);
+		session.markReceived(10, 20);
+
+		assertThat(session.contiguousBytes()).isEqualTo(30);
+		assertThat(session.receivedBytes()).isEqualTo(30);
+	}
+
+	@Test
+	void outOfOrderAndOverlappingChunksAreCountedOnce() {
+		session.markReceived(50, 100);
+		session.markReceived(40, 60);
+		session.markReceived(0, 45);
+		session.markReceived(5, 15);
+
+		assertThat(session.contiguousBytes()).isEqualTo(100);
+		assertThat(session.receivedBytes()).isEqualTo(100);
+	}
+
+	@Test
+	void rangeSpanningSeveralRangesAbsorbsThem() {
+		session.markReceived(10, 20);
+		session.markReceived(30, 40);
+		session.markReceived(50, 60);
+		session.markReceived(5, 55);
+
+		assertThat(session.contiguousBytes()).isZero();
+		assertThat(session.receivedBytes()).isEqualTo(55);
+	}
+
+	@Test
+	void adjacentRangesMerge() {
+		session.markReceived(0, 50);
+		session.markReceived(50, 100);
+
+		assertThat(session.contiguousBytes()).isEqualTo(100);
+	}
+
+	@Test
+	void completingSessionCannotBeCancelled() {
+		session.markReceived(0, 100);
+		session.beginCompletion();
+
+		assertThatThrownBy(session::beginCancel).isInstanceOf(IllegalStateException.class);
+	}
+}